@@ -1,162 +1,390 @@
 package uk.ac.ed.inf;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import uk.ac.ed.inf.ilp.constant.OrderStatus;
 import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
 import uk.ac.ed.inf.ilp.data.*;
 
 import java.io.IOException;
-import java.net.URL;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * This is the main class of the program. It will be used to run the whole program
  */
-public class App 
+public class App
 {
 
     // creates new instances of fileGenerator, orderValidator and flightPath
-    static FileGenerator fileGenerator = new FileGenerator();
+    //running with -DverifyAngles=true checks every angle in the flightpath file against findAngle, running with
+    //-DprettyOutput=true indents the files, running with -Dfsync=FILE or -Dfsync=FILE_AND_DIRECTORY forces the
+    //files to the disk before they are renamed into place and running with -DbinaryFlightpath=true also writes the
+    //flightpath in the binary format of BinaryFlightPath. Running with -DsearchMode=mode plans the paths with one of
+    //the modes of SearchMode instead of UNIDIRECTIONAL. fileGenerator and flightPath are replaced in main once -Dfsync
+    //and -DsearchMode have been read
+    static FileGenerator fileGenerator = createFileGenerator(FsyncPolicy.NONE);
     static OrderValidator orderValidator = new OrderValidator();
-    static FlightPath flightPath = new FlightPath();
+    static FlightPath flightPath = new FlightPath(ForkJoinPool.commonPool(), SearchMode.UNIDIRECTIONAL);
 
-    //Creates a linked hashmap that will store the paths of each valid order, with the order number being the key
-    static LinkedHashMap<String,List<Coordinate>> orderNumbers = new LinkedHashMap<>();
-    //Creates a linked hashmap that will store the path to each restaurant with the restaurant being the key
-    // This is done to avoid recalculating paths unnecessarily
-    static LinkedHashMap<String,List<Coordinate>> restaurantPaths = new LinkedHashMap<>();
+    //The file that keeps the paths to the restaurants between runs of the program
+    static final Path ROUTE_STORE_FILE = Paths.get("routecache", "routes.bin");
+    //The position of Appleton tower, where every path starts
+    static final LngLat APPLETON_TOWER = new LngLat(-3.186874, 55.944494);
+    //The separator between the first and last date of a range of dates
+    static final String DATE_RANGE_SEPARATOR = "..";
+    //The most dates that are processed at the same time when a range of dates is given. Running with -Dworkers=n
+    //changes it
+    static final int WORKERS = Integer.getInteger("workers", Runtime.getRuntime().availableProcessors());
+    //Whether the number of orders given each validation code and the time each validation rule took are written to
+    //a validation-metrics file next to the other files of each date. Running with -DvalidationMetrics=true sets it
+    static final boolean VALIDATION_METRICS = Boolean.getBoolean("validationMetrics");
+    //The first argument that runs the program as a PlanServer instead of processing dates
+    static final String SERVE_COMMAND = "serve";
+    //The port the PlanServer listens on. Running with -Dport=n changes it
+    static final int PORT = Integer.getInteger("port", 8080);
+    //The host name or address the PlanServer listens on, or null to only listen on the loopback address so it can not
+    //be reached from other machines. Running with -Dhost=address sets it, and -Dhost=0.0.0.0 listens on every address
+    static final String HOST = System.getProperty("host");
+    //How many seconds the PlanServer keeps the restaurants, central area and nofly zones before collecting them again.
+    //Running with -DrefreshSeconds=n changes it
+    static final int REFRESH_SECONDS = Integer.getInteger("refreshSeconds", 3600);
+    //The snapshot directory the responses of the Rest server are recorded into, so the same dates can be processed
+    //again later with the directory given in place of the url. Running with -DrecordSnapshot=directory sets it
+    static final Path RECORD_SNAPSHOT = System.getProperty("recordSnapshot") == null ? null
+            : Paths.get(System.getProperty("recordSnapshot"));
 
     /**
      This is a helper function that returns the restaurant that the order wants to get the pizza from
-     * @param restaurants is the array of all restaurants
+     * @param catalog is the catalog of the menus of all restaurants
      * @param order is the order that is being checked
      * @return Restaurant returns the found restaurant
      */
-    private static Restaurant getRestaurant(Restaurant[] restaurants, Order order){
-        Pizza pizza = order.getPizzasInOrder()[0];
-        for (Restaurant restaurant:restaurants) {
-            for (Pizza matchPizza:restaurant.menu()) {
-                if (pizza.equals(matchPizza)){
-                    return restaurant;
-                }
-            }
+    private static Restaurant getRestaurant(MenuCatalog catalog, Order order){
+        return catalog.restaurantFor(order.getPizzasInOrder()[0]);
+    }
+
+    /**
+     * This is a helper function that turns the date argument into the list of dates to process. The argument is
+     * either a single date or a range of dates such as 2023-09-01..2023-09-30, which includes both ends
+     * @param dateArg is the date argument
+     * @return List<String> returns every date in order, as yyyy-mm-dd
+     * @throws DateTimeParseException if a date is not correctly formatted
+     * @throws IllegalArgumentException if the range ends before it starts
+     */
+    static List<String> parseDates(String dateArg) {
+        List<String> dates = new ArrayList<>();
+        int separator = dateArg.indexOf(DATE_RANGE_SEPARATOR);
+        if (separator == -1) {
+            dates.add(LocalDate.parse(dateArg).toString());
+            return dates;
+        }
+        LocalDate first = LocalDate.parse(dateArg.substring(0, separator));
+        LocalDate last = LocalDate.parse(dateArg.substring(separator + DATE_RANGE_SEPARATOR.length()));
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("the range of dates ends before it starts");
         }
-        return null;
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            dates.add(date.toString());
+        }
+        return dates;
     }
 
     /**
-     * This is a helper function that checks if the inputted arguments are valid
+     * This is a helper function that checks if the inputted arguments are valid. Whether the Rest server is alive is
+     * checked when the data is collected, at the same time as the other requests
      * @param args is the arguments that are inputted
      * @return boolean returns true if the arguments are valid and false if they are not
-     * @throws IOException
      */
-    private static boolean validArgs(String[] args) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-
+    private static boolean validArgs(String[] args) {
         //checks if there are only two arguments
         if (args.length != 2){
             return false;
         }
 
         try {
-            //checks if the URL is valid
-            String urlCheck = args[1];
-            if (urlCheck.charAt(urlCheck.length() - 1) != '/') {
-                urlCheck = urlCheck + '/';
-            }
-            boolean alive = objectMapper.readValue(new URL(urlCheck + "isAlive"), new TypeReference<>() {
-            });
-            if (!alive){
-                return false;
-            }
+            //checks if the URL or snapshot directory is valid
+            RestClient.open(args[1], null);
 
-            //checks if the date is correctly formatted
-            LocalDate.parse(args[0]);
+            //checks if the date or range of dates is correctly formatted
+            parseDates(args[0]);
             return true;
         } catch (DateTimeParseException e) {
             return false;
-        }catch (IOException e) {
+        } catch (IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * This is a helper function that creates the FileGenerator the files are generated with
+     * @param fsyncPolicy is whether the files are forced to the disk before they are renamed into place
+     * @return FileGenerator returns the FileGenerator with the switches given as system properties
+     */
+    private static FileGenerator createFileGenerator(FsyncPolicy fsyncPolicy) {
+        return new FileGenerator(Boolean.getBoolean("verifyAngles"), Boolean.getBoolean("prettyOutput"), fsyncPolicy,
+                Boolean.getBoolean("binaryFlightpath"), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This is a helper function that reads a system property that names one of the values of an enum. A value that
+     * names none of them is reported together with the allowed values
+     * @param property is the name of the system property
+     * @param type is the enum the value is one of
+     * @param defaultValue is the value used when the property is not set
+     * @return E returns the value the property names, or null if it names none of them
+     */
+    static <E extends Enum<E>> E enumProperty(String property, Class<E> type, E defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown " + property + " " + value + ", allowed values are "
+                    + Arrays.toString(type.getEnumConstants()));
+            return null;
+        }
+    }
+
+    /**
+     * This is the function that processes the orders of one date. Every order is validated as soon as it has been
+     * read from the stream, while the rest are still arriving, and the path to its restaurant is taken from the route
+     * cache if it is already known. The paths that are not known are calculated together once every order has been
+     * read, and then the three files for the date are generated. Only the entry of the deliveries file is kept for
+     * each order, so the rest of the order is thrown away as soon as it has been validated
+     * @param date is the date of the orders
+     * @param orderStream is the stream the orders for this date are read from
+     * @param catalog is the catalog of the menus of all restaurants
+     * @param routeCache is the cache the paths to the restaurants are taken from
+     * @return List<OrdersForFiles> returns the deliveries file entry of every order of the date after it has been
+     * validated and planned
+     * @throws IOException if the orders cannot be read
+     */
+    static List<OrdersForFiles> processDate(String date, RestClient.OrderStream orderStream, MenuCatalog catalog,
+                                            RouteCache routeCache) throws IOException {
+        List<OrdersForFiles> deliveries = new ArrayList<>();
+        LinkedHashMap<String, Restaurant> orderRestaurants = new LinkedHashMap<>();
+        //the path to each restaurant that is already known, and the restaurants whose path has to be calculated
+        LinkedHashMap<String, PackedPath> restaurantPaths = new LinkedHashMap<>();
+        LinkedHashMap<String, LngLat> toCalculate = new LinkedHashMap<>();
+        ValidationMetrics metrics = VALIDATION_METRICS ? new ValidationMetrics() : null;
+        orderStream.forEach(o -> {
+            //validates the order
+            o = orderValidator.validateOrder(o, catalog, metrics);
+            deliveries.add(new OrdersForFiles(o.getOrderNo(), o.getOrderStatus(), o.getOrderValidationCode(),
+                    o.getPriceTotalInPence()));
+            //checks if the order is valid and has not been delivered yet
+            if (o.getOrderValidationCode().equals(OrderValidationCode.NO_ERROR) &&
+                    o.getOrderStatus().equals(OrderStatus.VALID_BUT_NOT_DELIVERED)) {
+                //gets the restaurant for this order
+                Restaurant restaurant = getRestaurant(catalog, o);
+                orderRestaurants.put(o.getOrderNo(), restaurant);
+                if (!restaurantPaths.containsKey(restaurant.name()) && !toCalculate.containsKey(restaurant.name())) {
+                    PackedPath known = routeCache.knownPath(restaurant.name(), restaurant.location());
+                    if (known != null) {
+                        restaurantPaths.put(restaurant.name(), known);
+                    }
+                    else {
+                        toCalculate.put(restaurant.name(), restaurant.location());
+                    }
+                }
+            }
+        });
+
+        //calculates the paths that no earlier date or run has calculated already, all from a single search tree
+        restaurantPaths.putAll(routeCache.pathsTo(toCalculate));
+
+        //Creates a linked hashmap that will store the paths of each valid order, with the order number being the key
+        LinkedHashMap<String, PackedPath> orderNumbers = new LinkedHashMap<>();
+        for (OrdersForFiles o : deliveries) {
+            Restaurant restaurant = orderRestaurants.get(o.getOrderNo());
+            if (restaurant == null) {
+                continue;
+            }
+            //changes the order state to delivered if a path was found and adds the order number and path to
+            //the HashMap
+            PackedPath path = restaurantPaths.get(restaurant.name());
+            if (path != null) {
+                o.setOrderStatus(OrderStatus.DELIVERED);
+                orderNumbers.put(o.getOrderNo(), path);
+            }
+        }
+        //generates the three files, and the validation metrics file if it is wanted
+        fileGenerator.generateFiles(orderNumbers, date, deliveries, metrics);
+        return deliveries;
+    }
+
+    /**
+     * This is the function that processes every date of a range. The restaurants, central area and nofly zones are
+     * collected once, the menus are indexed once, and up to WORKERS dates then collect their orders and are processed
+     * at the same time, sharing one route cache
+     * @param dates is the list of dates to process
+     * @param restClient is the client the data is collected with
+     * @return boolean returns true if every date was processed
+     * @throws IOException if the restaurants, central area or nofly zones cannot be collected
+     */
+    static boolean processDates(List<String> dates, RestClient restClient) throws IOException {
+        RestClient.ReferenceData reference = restClient.fetchReference();
+        RouteCache routeCache = new RouteCache(APPLETON_TOWER, reference.noFlyZones(), reference.centralArea(),
+                flightPath, ROUTE_STORE_FILE);
+        MenuCatalog catalog = new MenuCatalog(reference.restaurants());
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(WORKERS, dates.size())));
+        boolean allProcessed = true;
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (String date : dates) {
+                tasks.add(workers.submit(() -> {
+                    processDate(date, restClient.streamOrders(date), catalog, routeCache);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    tasks.get(i).get();
+                } catch (ExecutionException e) {
+                    //one date failing does not stop the others
+                    System.err.println("Date " + dates.get(i) + " could not be processed: " + e.getCause());
+                    allProcessed = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            allProcessed = false;
+        } finally {
+            workers.shutdownNow();
+        }
+        routeCache.save();
+        return allProcessed;
+    }
+
+    /**
+     * This is the function that starts the PlanServer. The server keeps running until the program is stopped
+     * @param source is the url of the Rest server or the path of a snapshot directory
+     * @throws IOException if the server cannot listen on HOST and PORT
+     */
+    static void serve(String source) throws IOException {
+        RestClient restClient;
+        try {
+            restClient = RestClient.open(source, RECORD_SNAPSHOT);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Arguments are invalid");
+            System.exit(1);
+            return;
+        }
+        //only the machine the program runs on can ask for dates to be planned unless another host is asked for
+        InetSocketAddress address = HOST == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT)
+                : new InetSocketAddress(HOST, PORT);
+        if (address.isUnresolved()) {
+            System.err.println("Unknown host: " + HOST);
+            System.exit(1);
+            return;
+        }
+        PlanServer server = new PlanServer(restClient, Duration.ofSeconds(REFRESH_SECONDS), ROUTE_STORE_FILE);
+        server.start(address, WORKERS);
+        //the paths calculated since the last date are saved when the program is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (IOException e) {
+                System.err.println("Could not save the route cache: " + e);
+            }
+        }));
+        InetAddress bound = server.address().getAddress();
+        String host = bound instanceof Inet6Address ? "[" + bound.getHostAddress() + "]" : bound.getHostAddress();
+        System.out.println("Planning dates at http://" + host + ":" + server.address().getPort()
+                + PlanServer.PLAN_PATH);
+    }
+
     /**
      * This is the main function that is used to run the whole program
-     * @param args is the arguments that are inputted
+     * @param args is the arguments that are inputted. The first is a date or a range of dates such as
+     *             2023-09-01..2023-09-30, and the second is the url of the Rest server or the path of a snapshot
+     *             directory that was recorded with -DrecordSnapshot. If the first is serve, the program keeps running
+     *             as a PlanServer that plans each date it is asked for
      */
 
     public static void main( String[] args )
     {
         try {
-            //creates the objectMapper which will be used to read from the Rest Server
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.registerModule(new JavaTimeModule());
+            //reads how the files are written and the mode the paths are planned with, which are used by the server
+            //as well as for dates
+            FsyncPolicy fsyncPolicy = enumProperty("fsync", FsyncPolicy.class, FsyncPolicy.NONE);
+            SearchMode searchMode = enumProperty("searchMode", SearchMode.class, SearchMode.UNIDIRECTIONAL);
+            if (fsyncPolicy == null || searchMode == null) {
+                System.exit(1);
+                return;
+            }
+            fileGenerator = createFileGenerator(fsyncPolicy);
+            flightPath = new FlightPath(ForkJoinPool.commonPool(), searchMode);
 
+            //runs as a server that keeps everything in memory between dates
+            if (args.length == 2 && args[0].equals(SERVE_COMMAND)) {
+                serve(args[1]);
+                return;
+            }
             //checks if the arguments are valid
             if (!validArgs(args)) {
                 System.err.println("Arguments are invalid");
                 System.exit(1);
             }
-            //breaks the arguments into the given date and the url
-            String date = args[0];
-            String url = args[1];
+            //breaks the arguments into the given dates and the url or snapshot directory
+            List<String> dates = parseDates(args[0]);
+            RestClient restClient = RestClient.open(args[1], RECORD_SNAPSHOT);
 
-            //checks if the url ends with a / and if it does not then it adds one
-            if (url.charAt(url.length() - 1) != '/') {
-                url = url + '/';
+            if (dates.size() > 1) {
+                boolean allProcessed;
+                try {
+                    allProcessed = processDates(dates, restClient);
+                } catch (IOException e) {
+                    System.err.println("Could not collect the data from the Rest server: " + e);
+                    allProcessed = false;
+                }
+                if (!allProcessed) {
+                    System.exit(1);
+                }
+                return;
             }
+            String date = dates.get(0);
 
-
-
-                //collects the necessary information from the rest servers
-                Restaurant[] restaurants = objectMapper.readValue(new URL(url + "restaurants"), new TypeReference<>() {
-                });
-                Order[] orders = objectMapper.readValue(new URL(url + "orders/" + date), new TypeReference<>() {
-                });
-                NamedRegion centralArea = objectMapper.readValue(new URL(url + "centralArea"), new TypeReference<>() {
-                });
-                NamedRegion[] noFlyZones = objectMapper.readValue(new URL(url + "noFlyZones"), new TypeReference<>() {
-                });
-
-                //iterates through ever order (on the given date)
-                for (Order o : orders) {
-                    //validates the order
-                    o = orderValidator.validateOrder(o, restaurants);
-                    //checks if the order is valid and has not been delivered yet
-                    if (o.getOrderValidationCode().equals(OrderValidationCode.NO_ERROR) &&
-                            o.getOrderStatus().equals(OrderStatus.VALID_BUT_NOT_DELIVERED)) {
-                        //gets the restaurant for this order
-                        Restaurant restaurant = getRestaurant(restaurants, o);
-                        //checks if the path to this restaurant has already been calculated
-                        if (restaurantPaths.containsKey(restaurant.name())) {
-                            //changes the order state to delivered and adds the order number and precalculated path to
-                            //the HashMap
-                            o.setOrderStatus(OrderStatus.DELIVERED);
-                            orderNumbers.put(o.getOrderNo(), restaurantPaths.get(restaurant.name()));
-                        } else {
-                            //calculates the flightpath of the drone from Appleton tower to the restaurant
-                            List<Coordinate> path = flightPath.calculateFlightPath(noFlyZones,
-                                    centralArea,
-                                    new LngLat(-3.186874, 55.944494),
-                                    restaurant.location());
-                            //changes the order state to delivered if a path was found and adds the order number and
-                            // calculated path to the HashMap
-                            if (path != null) {
-                                o.setOrderStatus(OrderStatus.DELIVERED);
-                            }
-                            orderNumbers.put(o.getOrderNo(), path);
-                            //adds the path to the restaurant HashMap so the path will not be recalculated
-                            restaurantPaths.put(restaurant.name(), path);
-                        }
-                    }
-                }
-                //generates the three files
-                fileGenerator.generateFiles(orderNumbers, date, orders);
+            //collects the necessary information from the rest servers, with every request sent at the same time.
+            //The orders are read one at a time once the restaurants have arrived
+            RestClient.OrderStream orderStream;
+            RestClient.ReferenceData reference;
+            try {
+                CompletableFuture<RestClient.ReferenceData> referenceRequest = restClient.fetchReferenceAsync();
+                orderStream = restClient.streamOrders(date);
+                reference = RestClient.join(referenceRequest);
+            } catch (IOException e) {
+                System.err.println("Could not collect the data from the Rest server: " + e);
+                System.exit(1);
+                return;
+            }
+            RouteCache routeCache = new RouteCache(APPLETON_TOWER, reference.noFlyZones(), reference.centralArea(),
+                    flightPath, ROUTE_STORE_FILE);
+            try {
+                processDate(date, orderStream, new MenuCatalog(reference.restaurants()), routeCache);
+            } catch (IOException e) {
+                System.err.println("Could not collect the orders from the Rest server: " + e);
+                System.exit(1);
+            }
+            routeCache.save();
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -0,0 +1,321 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.Arrays;
+
+/**
+ * This is a class that finds the flight path between two points with two A star searches on the same lattice of
+ * moves, one forwards from the start and one backwards from the end. The searches take turns, with the one that has the
+ * smaller open set going next, and stop once a node expanded by one of them is within MEETING_DISTANCE of a node
+ * expanded by the other and no meeting more than STOP_SLACK shorter is possible.
+ * The two lattices are not lined up, so the backward half of the path can not be used as it is. Instead the moves of
+ * the backward half are flown again from the forward node where the searches met, which keeps every move exactly
+ * DRONE_MOVE_DISTANCE long and ends within MEETING_DISTANCE of the end. The moved half is checked against the nofly
+ * zones and the central area again before it is used
+ */
+class BidirectionalSearch {
+    //How close a forward node and a backward node have to be for the searches to meet. Half of the close distance
+    //leaves room for the last move of the path to still be close to the end after it has been moved
+    static final double MEETING_DISTANCE = SystemConstants.DRONE_IS_CLOSE_DISTANCE / 2;
+    //How much longer than the shortest path the path found may be. Proving that no meeting is even one move shorter
+    //makes both searches explore everything the other one could still reach, which costs more than one search alone
+    static final double STOP_SLACK = SystemConstants.DRONE_MOVE_DISTANCE;
+
+    //The state of the search from the start
+    final SearchContext forward = new SearchContext();
+    //The state of the search from the end. The parent of a node is the node the drone flies to next
+    final SearchContext backward = new SearchContext();
+    private final MeetingGrid forwardExpanded = new MeetingGrid();
+    private final MeetingGrid backwardExpanded = new MeetingGrid();
+
+    //The best path found so far and its length
+    private PackedPath bestPath;
+    private double bestCost;
+    //The most the path from the last search can be longer than the shortest path, as a multiple of it
+    double bound;
+
+    /**
+     * This is the function that calculates the flight path between two points
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @return PackedPath returns the path that the drone will take, or null if there is none
+     */
+    PackedPath search(GeofenceIndex geofence, LngLat start, LngLat end) {
+        addRoot(forward, start, end);
+        addRoot(backward, end, start);
+        forwardExpanded.reset(start.lng(), start.lat());
+        backwardExpanded.reset(start.lng(), start.lat());
+        bestPath = null;
+        bestCost = Double.POSITIVE_INFINITY;
+
+        //the forward search has to keep going for there to be a path, but the backward search may run out first if
+        //the end can only be reached by flying into the central area
+        while (!forward.openSet.isEmpty()) {
+            //stops once neither search can find a meeting that is more than STOP_SLACK shorter than the best path
+            if (bestPath != null && bestCost <= Math.max(lowestF(forward), lowestF(backward)) + STOP_SLACK) {
+                break;
+            }
+            if (backward.openSet.isEmpty() || forward.openSet.size() <= backward.openSet.size()) {
+                stepForward(geofence, end);
+            }
+            else {
+                stepBackward(geofence, start, end);
+            }
+        }
+        //no path can be shorter than the lowest f value left on either open set
+        double shortestPossible = Math.min(bestCost, Math.max(lowestF(forward), lowestF(backward)));
+        bound = bestPath == null ? Double.POSITIVE_INFINITY : bestCost / shortestPossible;
+        return bestPath;
+    }
+
+    /**
+     * This is a helper function that clears a search state and adds the point it starts from to its open set
+     * @param context is the state of the search
+     * @param root is the point the search starts from
+     * @param target is the point the search is heading towards
+     */
+    private static void addRoot(SearchContext context, LngLat root, LngLat target) {
+        context.reset(root.lng(), root.lat());
+        int node = context.arena.add(root.lng(), root.lat(), 0, FlightPath.lngLatHandler.distanceTo(root, target),
+                NodeArena.NO_PARENT, NodeArena.NO_DIRECTION);
+        context.nodes.put(context.latticeKey(root.lng(), root.lat()), node);
+        context.openSet.add(node);
+    }
+
+    /**
+     * This is a helper function that returns the lowest f value on the open set of a search
+     * @param context is the state of the search
+     * @return double returns the lowest f value, or infinity if the open set is empty
+     */
+    private static double lowestF(SearchContext context) {
+        int top = context.openSet.peek();
+        return top == -1 ? Double.POSITIVE_INFINITY : context.arena.f[top];
+    }
+
+    /**
+     * This is a helper function that expands the next node of the forward search
+     * @param geofence is the index of the nofly zones and central area
+     * @param end is the end point of the drone
+     */
+    private void stepForward(GeofenceIndex geofence, LngLat end) {
+        NodeArena arena = forward.arena;
+        int current = forward.openSet.poll();
+        forward.expansions++;
+        //the forward search can still reach the end on its own
+        if (LngLatHandler.distanceTo(arena.lng[current], arena.lat[current], end.lng(), end.lat())
+                < SystemConstants.DRONE_IS_CLOSE_DISTANCE && arena.g[current] < bestCost) {
+            bestPath = FlightPath.buildPath(arena, current);
+            bestCost = arena.g[current];
+        }
+        forwardExpanded.add(current, arena.lng[current], arena.lat[current]);
+        //tries every node the backward search has expanded near this one
+        MeetingGrid near = backwardExpanded;
+        for (int cell = 0; cell < 9; cell++) {
+            int other = near.first(arena.lng[current], arena.lat[current], cell);
+            while (other != -1) {
+                tryMeeting(geofence, end, current, other);
+                other = near.next(other);
+            }
+        }
+        FlightPath.expand(current, geofence, end, forward);
+    }
+
+    /**
+     * This is a helper function that expands the next node of the backward search
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     */
+    private void stepBackward(GeofenceIndex geofence, LngLat start, LngLat end) {
+        NodeArena arena = backward.arena;
+        int current = backward.openSet.poll();
+        backward.expansions++;
+        backwardExpanded.add(current, arena.lng[current], arena.lat[current]);
+        //tries every node the forward search has expanded near this one
+        MeetingGrid near = forwardExpanded;
+        for (int cell = 0; cell < 9; cell++) {
+            int other = near.first(arena.lng[current], arena.lat[current], cell);
+            while (other != -1) {
+                tryMeeting(geofence, end, other, current);
+                other = near.next(other);
+            }
+        }
+        expandBackward(current, geofence, start);
+    }
+
+    /**
+     * This is a helper function that adds every point the drone could have flown to a node from onto the open set of
+     * the backward search. The drone may not fly from outside the central area into it, so a node in the central area
+     * can only be reached from another point in the central area
+     * @param current is the index of the node that is being expanded
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone, which the h values of new nodes are measured to
+     */
+    private void expandBackward(int current, GeofenceIndex geofence, LngLat start) {
+        NodeArena arena = backward.arena;
+        double currentLng = arena.lng[current];
+        double currentLat = arena.lat[current];
+        boolean currentInCentral = geofence.isInCentral(currentLng, currentLat);
+        for (int direction = 0; direction < FlightPath.angles.length; direction++) {
+            //taking the move away finds the point the drone would have flown this direction from
+            double previousLng = currentLng - LngLatHandler.moveLng(direction);
+            double previousLat = currentLat - LngLatHandler.moveLat(direction);
+            long key = backward.latticeKey(previousLng, previousLat);
+            int neighbour = backward.nodes.get(key);
+            if ((neighbour == LongIntHashMap.MISSING || backward.openSet.contains(neighbour)) &&
+                    !(currentInCentral && !geofence.isInCentral(previousLng, previousLat)) &&
+                    !geofence.isInNoFly(previousLng, previousLat)) {
+                double tentativeG = arena.g[current] + SystemConstants.DRONE_MOVE_DISTANCE;
+                if (neighbour != LongIntHashMap.MISSING) {
+                    if (tentativeG < arena.g[neighbour]) {
+                        arena.parent[neighbour] = current;
+                        arena.direction[neighbour] = (byte) direction;
+                        arena.g[neighbour] = tentativeG;
+                        arena.f[neighbour] = tentativeG + arena.h[neighbour];
+                        backward.openSet.decreaseKey(neighbour);
+                    }
+                }
+                else {
+                    neighbour = arena.add(previousLng, previousLat, tentativeG,
+                            LngLatHandler.distanceTo(previousLng, previousLat, start.lng(), start.lat()), current,
+                            direction);
+                    backward.nodes.put(key, neighbour);
+                    backward.openSet.add(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that checks if a forward node and a backward node are close enough to meet, and if
+     * joining the searches there gives a shorter path than the best one so far. If it does and the joined path is
+     * legal, it becomes the best path
+     * @param geofence is the index of the nofly zones and central area
+     * @param end is the end point of the drone
+     * @param forwardNode is the index of the node in the forward search
+     * @param backwardNode is the index of the node in the backward search
+     */
+    private void tryMeeting(GeofenceIndex geofence, LngLat end, int forwardNode, int backwardNode) {
+        NodeArena forwardArena = forward.arena;
+        NodeArena backwardArena = backward.arena;
+        double cost = forwardArena.g[forwardNode] + backwardArena.g[backwardNode];
+        if (cost >= bestCost) {
+            return;
+        }
+        double dLng = forwardArena.lng[forwardNode] - backwardArena.lng[backwardNode];
+        double dLat = forwardArena.lat[forwardNode] - backwardArena.lat[backwardNode];
+        if (dLng * dLng + dLat * dLat >= MEETING_DISTANCE * MEETING_DISTANCE) {
+            return;
+        }
+        PackedPath path = join(geofence, end, forwardNode, backwardNode);
+        if (path != null) {
+            bestPath = path;
+            bestCost = cost;
+        }
+    }
+
+    /**
+     * This is a helper function that joins the path to a forward node with the moves from a backward node to the end,
+     * flown from the forward node
+     * @param geofence is the index of the nofly zones and central area
+     * @param end is the end point of the drone
+     * @param forwardNode is the index of the node in the forward search
+     * @param backwardNode is the index of the node in the backward search
+     * @return PackedPath returns the joined path, or null if the moved half enters a nofly zone, re-enters the
+     * central area or does not finish close to the end
+     */
+    private PackedPath join(GeofenceIndex geofence, LngLat end, int forwardNode, int backwardNode) {
+        NodeArena backwardArena = backward.arena;
+        PackedPath.Builder path = new PackedPath.Builder(FlightPath.buildPath(forward.arena, forwardNode));
+        double lng = path.lastLng();
+        double lat = path.lastLat();
+        boolean isInCentral = geofence.isInCentral(lng, lat);
+        int node = backwardNode;
+        while (backwardArena.parent[node] != NodeArena.NO_PARENT) {
+            lng += LngLatHandler.moveLng(backwardArena.direction[node]);
+            lat += LngLatHandler.moveLat(backwardArena.direction[node]);
+            boolean nextInCentral = geofence.isInCentral(lng, lat);
+            if ((!isInCentral && nextInCentral) || geofence.isInNoFly(lng, lat)) {
+                return null;
+            }
+            isInCentral = nextInCentral;
+            path.move(lng, lat, backwardArena.direction[node]);
+            node = backwardArena.parent[node];
+        }
+        return LngLatHandler.distanceTo(lng, lat, end.lng(), end.lat()) < SystemConstants.DRONE_IS_CLOSE_DISTANCE
+                ? path.build() : null;
+    }
+
+    /**
+     * This is a class that sorts the nodes one search has expanded into square cells of MEETING_DISTANCE, so that the
+     * other search only has to look at the nine cells around a node to find every node it could meet
+     */
+    private static class MeetingGrid {
+        //Maps every cell to the last node that was added to it
+        private final LongIntHashMap heads = new LongIntHashMap(1024);
+        //The node that was added to the same cell before each node, or -1
+        private int[] next = new int[1024];
+        private double originLng, originLat;
+
+        /**
+         * This function removes every node from the grid
+         * @param lng is the longitude the cells are measured from
+         * @param lat is the latitude the cells are measured from
+         */
+        void reset(double lng, double lat) {
+            heads.clear();
+            originLng = lng;
+            originLat = lat;
+        }
+
+        /**
+         * This function adds a node to the cell it is in
+         * @param node is the index of the node
+         * @param lng is the longitude of the node
+         * @param lat is the latitude of the node
+         */
+        void add(int node, double lng, double lat) {
+            if (node >= next.length) {
+                next = Arrays.copyOf(next, Math.max(next.length * 2, node + 1));
+            }
+            long key = cellKey(cellX(lng), cellY(lat));
+            next[node] = heads.get(key);
+            heads.put(key, node);
+        }
+
+        /**
+         * This function returns the last node added to one of the nine cells around a position
+         * @param lng is the longitude of the position
+         * @param lat is the latitude of the position
+         * @param cell is which of the nine cells to look in, from 0 to 8
+         * @return int returns the index of the node, or -1 if the cell is empty
+         */
+        int first(double lng, double lat, int cell) {
+            return heads.get(cellKey(cellX(lng) + cell % 3 - 1, cellY(lat) + cell / 3 - 1));
+        }
+
+        /**
+         * This function returns the node that was added to the same cell before a node
+         * @param node is the index of the node
+         * @return int returns the index of the node before it, or -1 if it was the first
+         */
+        int next(int node) {
+            return next[node];
+        }
+
+        private long cellX(double lng) {
+            return (long) Math.floor((lng - originLng) / MEETING_DISTANCE);
+        }
+
+        private long cellY(double lat) {
+            return (long) Math.floor((lat - originLat) / MEETING_DISTANCE);
+        }
+
+        private static long cellKey(long x, long y) {
+            return (x << 32) | (y & 0xFFFFFFFFL);
+        }
+    }
+}
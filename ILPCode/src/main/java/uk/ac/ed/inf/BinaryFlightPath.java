@@ -0,0 +1,270 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * This is a class that writes and reads the flightpath of a day in a compact binary format instead of JSON. Every
+ * move of the drone is one byte, since every move goes in one of the 16 directions from the point before it and the
+ * coordinates can be calculated again when the file is read, exactly as the search calculated them.
+ * <p>
+ * The file is a header (magic number, version and number of orders) followed by one record per order: the order
+ * number, the longitude and latitude of the first point, the number of moves and then one byte per move, all big
+ * endian. The number of orders lets a file that was cut short be told apart from one that was read to the end. A
+ * move byte is either a direction from 0 to 15, which flies to a new point, RETRACE plus a direction, which flies back
+ * to the point before the current one, or HOVER. A hover finishes where it starts, except the last move of an order,
+ * which finishes at the first point of the next order the same as in the JSON file.
+ * <p>
+ * Reading the file gives back the same FlightPathForFiles rows, in the same order, as the JSON flightpath file, and
+ * toJson writes a file that is the same byte for byte as the one FileGenerator writes
+ */
+public final class BinaryFlightPath {
+    private static final int MAGIC = 0x46504231;
+    private static final int VERSION = 2;
+    //A move back to the point before the current one, in the direction given by the byte minus RETRACE
+    static final int RETRACE = 16;
+    //A move that stays where it is, written with the angle 999.0
+    static final int HOVER = 0x40;
+
+    private BinaryFlightPath() {
+    }
+
+    /**
+     * This function writes the flightpath of a day. Each order flies its path to the restaurant, hovers, flies the
+     * same path back and hovers again, the same as the JSON flightpath file
+     * @param out is the stream the file is written to. It is not closed
+     * @param orderPaths is the map of the paths of each order, with the order number as the key
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a point of a path is not exactly where its move from the point before lands,
+     * since then the path could not be read back without changing it
+     */
+    public static void write(OutputStream out, Map<String, PackedPath> orderPaths) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(orderPaths.size());
+        for (Map.Entry<String, PackedPath> entry : orderPaths.entrySet()) {
+            PackedPath path = entry.getValue();
+            data.writeUTF(entry.getKey());
+            data.writeDouble(path.lng(0));
+            data.writeDouble(path.lat(0));
+            //every move there and back, and a hover at each end
+            data.writeInt(2 * path.moves() + 2);
+            for (int i = 0; i < path.moves(); i++) {
+                int direction = path.direction(i);
+                if (Double.compare(LngLatHandler.moveLng(direction) + path.lng(i), path.lng(i + 1)) != 0
+                        || Double.compare(LngLatHandler.moveLat(direction) + path.lat(i), path.lat(i + 1)) != 0) {
+                    throw new IllegalArgumentException("move " + i + " of order " + entry.getKey()
+                            + " does not land exactly on the next point of its path");
+                }
+                data.writeByte(direction);
+            }
+            data.writeByte(HOVER);
+            PackedPath back = path.reversed();
+            for (int i = 0; i < back.moves(); i++) {
+                data.writeByte(RETRACE + back.direction(i));
+            }
+            data.writeByte(HOVER);
+        }
+        data.flush();
+    }
+
+    /**
+     * This function converts a binary flightpath file to the JSON flightpath file
+     * @param in is the stream the binary file is read from. It is not closed
+     * @param generator is the generator the JSON file is written to
+     * @throws IOException if the binary file cannot be read or is not a flightpath file, or the JSON cannot be written
+     */
+    public static void toJson(InputStream in, JsonGenerator generator) throws IOException {
+        Reader reader = new Reader(in);
+        generator.writeStartArray();
+        try {
+            while (reader.hasNext()) {
+                FlightPathForFiles move = reader.next();
+                FileGenerator.writeMove(generator, move.getOrderNo(), move.getFromLongitude(),
+                        move.getFromLatitude(), move.getAngle(), move.getToLongitude(), move.getToLatitude());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (reader.getFailure() != null) {
+            throw reader.getFailure();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * This is the main function that converts a binary flightpath file into the JSON flightpath file
+     * @param args are the binary file that is read and the JSON file that is written
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryFlightPath <binary file> <json file>");
+            System.exit(1);
+        }
+        Path binary = Paths.get(args[0]);
+        Path json = Paths.get(args[1]);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(binary));
+             JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(json.toFile(), JsonEncoding.UTF8)) {
+            toJson(in, generator);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * This is a class that reads the moves of a binary flightpath file one at a time, as the rows of the JSON
+     * flightpath file. Only the points of the order that is being read are kept in memory
+     */
+    public static final class Reader implements Iterator<FlightPathForFiles> {
+        private final DataInputStream data;
+        //The order that is being read, the moves of it that are left and the next order after it
+        private Header current, next;
+        private int movesLeft;
+        //The number of orders whose header has not been read yet
+        private int ordersLeft;
+        //The points the drone has flown to in this order, with the last one being where it is now. A retrace goes
+        //back to the one before
+        private double[] lng = new double[64], lat = new double[64];
+        private int points;
+        //The error that stopped the file being read, since an iterator can not throw an IOException
+        private IOException failure;
+
+        /**
+         * This is the initializer for the Reader class
+         * @param in is the stream the binary file is read from. It is not closed
+         * @throws IOException if the stream does not start with the header of a flightpath file
+         */
+        public Reader(InputStream in) throws IOException {
+            data = new DataInputStream(in);
+            try {
+                if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                    throw new IOException("not a binary flightpath file");
+                }
+                ordersLeft = data.readInt();
+            } catch (EOFException e) {
+                throw new IOException("not a binary flightpath file", e);
+            }
+            if (ordersLeft < 0) {
+                throw new IOException("bad number of orders " + ordersLeft);
+            }
+            next = readHeader();
+        }
+
+        /**
+         * This is a helper function that returns the error that stopped the file being read, if there was one
+         * @return IOException returns the error, or null if the file was read to the end
+         */
+        public IOException getFailure() {
+            return failure;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (failure != null) {
+                return false;
+            }
+            try {
+                while (movesLeft == 0) {
+                    if (next == null) {
+                        return false;
+                    }
+                    current = next;
+                    movesLeft = current.moves();
+                    lng[0] = current.lng();
+                    lat[0] = current.lat();
+                    points = 1;
+                    //the header of the order after this one is read once the last move of this one has been read,
+                    //since that is where its last hover finishes
+                    next = movesLeft == 0 ? readHeader() : null;
+                }
+                return true;
+            } catch (IOException e) {
+                failure = e;
+                return false;
+            }
+        }
+
+        @Override
+        public FlightPathForFiles next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                int move = data.readUnsignedByte();
+                movesLeft--;
+                if (movesLeft == 0) {
+                    next = readHeader();
+                }
+                double fromLng = lng[points - 1];
+                double fromLat = lat[points - 1];
+                if (move == HOVER) {
+                    //the last hover of an order finishes where the next order starts
+                    if (movesLeft == 0 && next != null) {
+                        return new FlightPathForFiles(current.orderNo(), fromLng, fromLat, 999.0, next.lng(),
+                                next.lat());
+                    }
+                    return new FlightPathForFiles(current.orderNo(), fromLng, fromLat, 999.0, fromLng, fromLat);
+                }
+                if (move < RETRACE) {
+                    if (points == lng.length) {
+                        lng = Arrays.copyOf(lng, points * 2);
+                        lat = Arrays.copyOf(lat, points * 2);
+                    }
+                    //calculated the same way as LngLatHandler.nextPositions, so the point is exactly the one the
+                    //search found
+                    lng[points] = LngLatHandler.moveLng(move) + fromLng;
+                    lat[points] = LngLatHandler.moveLat(move) + fromLat;
+                    points++;
+                }
+                else if (move < RETRACE + LngLatHandler.DIRECTION_ANGLES.length && points > 1) {
+                    points--;
+                    move -= RETRACE;
+                }
+                else {
+                    throw new IOException("bad move " + move + " in order " + current.orderNo());
+                }
+                return new FlightPathForFiles(current.orderNo(), fromLng, fromLat,
+                        LngLatHandler.DIRECTION_ANGLES[move] % 360, lng[points - 1], lat[points - 1]);
+            } catch (IOException e) {
+                failure = e;
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * This is a helper function that reads the header of the next order
+         * @return Header returns the header, or null if there are no more orders
+         * @throws IOException if the header cannot be read, including when the file ends before every order the file
+         * header counted
+         */
+        private Header readHeader() throws IOException {
+            if (ordersLeft == 0) {
+                return null;
+            }
+            try {
+                Header header = new Header(data.readUTF(), data.readDouble(), data.readDouble(), data.readInt());
+                ordersLeft--;
+                return header;
+            } catch (EOFException e) {
+                throw new IOException("the file is cut short with " + ordersLeft + " orders left to read", e);
+            }
+        }
+    }
+
+    /**
+     * This is a record of the order number, first point and number of moves of one order in the file
+     */
+    private record Header(String orderNo, double lng, double lat, int moves) {
+    }
+}
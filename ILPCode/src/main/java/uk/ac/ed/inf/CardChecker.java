@@ -0,0 +1,114 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+
+import java.time.LocalDate;
+
+/**
+ * This is a class that checks the credit card of an order. The card number, expiry date and CVV are each read once,
+ * a character at a time, and each check stops at the first character that is wrong. Nothing is allocated, so checking
+ * a card costs the same however many orders are checked
+ */
+final class CardChecker {
+    //The number of digits in a card number
+    static final int CARD_NUMBER_LENGTH = 16;
+    //The number of digits in a CVV
+    static final int CVV_LENGTH = 3;
+    //The most digits the month or year of an expiry date may have, so they cannot overflow an int
+    private static final int MAX_EXPIRY_DIGITS = 9;
+    //What readExpiryField returns when the field is not made of digits
+    private static final int NOT_A_NUMBER = -1;
+
+    private CardChecker() {
+    }
+
+    /**
+     * This function checks the card number, expiry date and CVV of a card, in that order
+     * @param card is the credit card of the order
+     * @param orderDate is the date of the order, which the card must not have expired before
+     * @return OrderValidationCode returns CARD_NUMBER_INVALID, EXPIRY_DATE_INVALID or CVV_INVALID for the first check
+     * that fails, or NO_ERROR if the card is valid
+     */
+    static OrderValidationCode check(CreditCardInformation card, LocalDate orderDate) {
+        if (card == null || !allDigits(card.getCreditCardNumber(), CARD_NUMBER_LENGTH)) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+        if (!expiryValid(card.getCreditCardExpiry(), orderDate)) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        if (!allDigits(card.getCvv(), CVV_LENGTH)) {
+            return OrderValidationCode.CVV_INVALID;
+        }
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    /**
+     * This is a helper function that checks if a string is the given length and every character is a digit
+     * @param value is the string that is being checked
+     * @param length is the length it must be
+     * @return boolean returns true if it is the right length and all digits
+     */
+    static boolean allDigits(String value, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This is a helper function that checks if an expiry date written as MM/YY is a real month and the card has not
+     * expired by the date of the order. As before, a month of 0 is allowed, and anything after a second / is not read
+     * @param expiry is the expiry date that is being checked
+     * @param orderDate is the date of the order
+     * @return boolean returns true if the expiry date is valid and false if it is not
+     */
+    static boolean expiryValid(String expiry, LocalDate orderDate) {
+        if (expiry == null) {
+            return false;
+        }
+        int slash = expiry.indexOf('/');
+        if (slash == -1) {
+            return false;
+        }
+        int end = expiry.indexOf('/', slash + 1);
+        int expiryMonth = readExpiryField(expiry, 0, slash);
+        int expiryYear = readExpiryField(expiry, slash + 1, end == -1 ? expiry.length() : end);
+        if (expiryMonth == NOT_A_NUMBER || expiryYear == NOT_A_NUMBER || expiryMonth > 12) {
+            return false;
+        }
+        int currentYear = orderDate.getYear() % 100;
+        if (expiryYear != currentYear) {
+            return expiryYear > currentYear;
+        }
+        return expiryMonth >= orderDate.getMonthValue();
+    }
+
+    /**
+     * This is a helper function that reads the number between two positions of an expiry date
+     * @param expiry is the expiry date
+     * @param from is the position of the first digit
+     * @param to is the position after the last digit
+     * @return int returns the number, or NOT_A_NUMBER if there are no digits, too many or anything that is not a digit
+     */
+    private static int readExpiryField(String expiry, int from, int to) {
+        if (to <= from || to - from > MAX_EXPIRY_DIGITS) {
+            return NOT_A_NUMBER;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = expiry.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package uk.ac.ed.inf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This is a class that writes a file through a FileChannel with one large buffer, so the file is written in a few
+ * large writes instead of many small ones. Everything goes to a temporary file next to the target, which is only
+ * renamed onto the target when commit is called. If the stream is closed without being committed the temporary file
+ * is deleted, so the target is either the whole new file or left as it was
+ */
+class ChannelOutputStream extends OutputStream {
+    //The size of the buffer used when no size is given, which holds all of a typical day's deliveries file
+    static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final Path target;
+    private final Path temporary;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private boolean closed = false;
+
+    /**
+     * This is the initializer for the ChannelOutputStream class
+     * @param target is the file that is replaced when the stream is committed
+     * @param fsyncPolicy is how far the file is forced to the disk when the stream is committed
+     * @param bufferSize is the number of bytes that are collected before they are written to the channel
+     * @throws IOException if the temporary file cannot be made
+     */
+    ChannelOutputStream(Path target, FsyncPolicy fsyncPolicy, int bufferSize) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.fsyncPolicy = fsyncPolicy;
+        Path directory = this.target.getParent();
+        Files.createDirectories(directory);
+        //the temporary file is made with CREATE_NEW rather than Files.createTempFile, which would only let the owner
+        //read it, so the renamed file has the same permissions as any other file the program writes
+        temporary = directory.resolve(this.target.getFileName() + "." + ProcessHandle.current().pid() + "."
+                + Long.toHexString(System.nanoTime()) + ".tmp");
+        channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+        //a heap buffer rather than a direct one, as direct memory is only given back once the buffer is garbage
+        //collected, and many dates can each be writing several files at the same time
+        buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * This function writes everything that has been buffered to the temporary file, forces it to the disk if the
+     * policy says to, and renames it onto the target. Closing the stream afterwards does nothing
+     * @throws IOException if the file cannot be written or renamed, in which case the target is left as it was
+     */
+    void commit() throws IOException {
+        if (closed) {
+            throw new IOException("the stream for " + target + " is already closed");
+        }
+        try {
+            drain();
+            if (fsyncPolicy != FsyncPolicy.NONE) {
+                channel.force(true);
+            }
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            closed = true;
+        } finally {
+            //if anything failed the temporary file is thrown away
+            close();
+        }
+        if (fsyncPolicy == FsyncPolicy.FILE_AND_DIRECTORY) {
+            forceDirectory(target.getParent());
+        }
+    }
+
+    /**
+     * This function closes the stream. If it has not been committed the temporary file is deleted and the target is
+     * left as it was
+     * @throws IOException if the temporary file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * This is a helper function that writes everything in the buffer to the channel and empties the buffer
+     * @throws IOException if the bytes cannot be written
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * This is a helper function that forces a directory to the disk so a rename in it is not lost. Some systems
+     * cannot open a directory as a channel, and on those nothing is done
+     * @param directory is the directory that is forced
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //the rename has still happened, it just may not survive the whole machine crashing
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package uk.ac.ed.inf;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import uk.ac.ed.inf.ilp.data.LngLat;
-import uk.ac.ed.inf.ilp.data.Order;
-
-import java.io.File;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static uk.ac.ed.inf.FlightPath.findAngle;
 
@@ -17,205 +21,380 @@ import static uk.ac.ed.inf.FlightPath.findAngle;
 /**
  * This is a class that will generate the files needed for the program. It has three functions, one for each file
  * that needs to be generated. It also has a function that calls all three of these functions.
+ * Each file is streamed token by token through a JsonGenerator straight into the file, so nothing is built up in
+ * memory first and the memory used stays the same however many orders and moves there are. The three files are
+ * written at the same time, each by its own task, into a temporary file that is renamed into place once it is
+ * complete, so the files take as long as the slowest of them and a crash never leaves part of a file behind
  */
 public class FileGenerator {
+    //The factory every JsonGenerator is made from. A JsonFactory is thread safe and reuses its buffers, so one is
+    //shared by every FileGenerator
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    //Whether every angle taken from the directions of the paths is checked against the angle findAngle calculates
+    private final boolean verifyAngles;
+    //Whether the files are indented to be read by a person instead of being as small as possible
+    private final boolean prettyPrint;
+    //How far each file is forced to the disk before it is renamed into place
+    private final FsyncPolicy fsyncPolicy;
+    //Whether the flightpath is also written in the binary format of BinaryFlightPath
+    private final boolean binaryFlightpath;
+    //This is the pool that the three files are written in at the same time
+    private final ForkJoinPool pool;
+    //The number of angles that did not match findAngle since this FileGenerator was made. Several dates can be
+    //written at the same time, so it is counted atomically
+    private final AtomicInteger angleMismatches = new AtomicInteger();
 
     /**
-     * This function generates the GeoJson file. It takes in a hashmap of the paths of each order, with the order name
-     * as the key.
-     * @param orderPaths is the hashmap of the paths of each order
-     * @return ObjectNode returns the generated GeoJson file data
-     */
-    public ObjectNode generateGeoJsonPath(HashMap<String, List<Coordinate>> orderPaths){
-        //creates an instance of an ObjectMapper
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode featureCollection = objectMapper.createObjectNode();
-        //Adds the needed Object nodes for features properties and geometry to make it a valid GeoJson file
-        featureCollection.put("type", "FeatureCollection");
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        ObjectNode feature = objectMapper.createObjectNode();
-        //If there are no orders returns empty but valid geojson data
-        if (orderPaths.isEmpty()){
-            featureCollection.set("features", objectMapper.createArrayNode());
-            return featureCollection;
-        }
-        feature.put("type", "Feature");
-        ObjectNode properties = objectMapper.createObjectNode();
-        feature.set("properties",properties );
-        ObjectNode geometry = objectMapper.createObjectNode();
-        geometry.put("type","LineString");
-        ArrayNode coordinatesNode = objectMapper.createArrayNode();
-
-
-        for (List<Coordinate> coordinateList: orderPaths.values()) {
-            // Goes through each different order and its related path
-            for (Coordinate coordinates: coordinateList) {
-                //for each coordinate in the path add it to the coordinatesNode
-                ArrayNode coordinate = objectMapper.createArrayNode();
-                coordinate.add(coordinates.lng);
-                coordinate.add(coordinates.lat);
-                coordinatesNode.add(coordinate);
-            }
-            //This only adds the path in one direction (from appleton to the restaurant) so we reverse it and
-            // repeat the process
-            Collections.reverse(coordinateList);
-            for (Coordinate coordinates: coordinateList) {
-                ArrayNode coordinate = objectMapper.createArrayNode();
-                coordinate.add(coordinates.lng);
-                coordinate.add(coordinates.lat);
-                coordinatesNode.add(coordinate);
+     * This is the initializer for the FileGenerator class. The angles of the moves are not checked and the files are
+     * not indented
+     */
+    public FileGenerator() {
+        this(false, false);
+    }
+
+    /**
+     * This is the initializer for the FileGenerator class. The files are not indented
+     * @param verifyAngles is true if every angle written to the flightpath file should be checked against the angle
+     *                     findAngle calculates from the coordinates of the move. Every angle that does not match is
+     *                     reported on System.err
+     */
+    public FileGenerator(boolean verifyAngles) {
+        this(verifyAngles, false);
+    }
+
+    /**
+     * This is the initializer for the FileGenerator class
+     * @param verifyAngles is true if every angle written to the flightpath file should be checked against the angle
+     *                     findAngle calculates from the coordinates of the move. Every angle that does not match is
+     *                     reported on System.err
+     * @param prettyPrint is true if the files should be indented
+     */
+    public FileGenerator(boolean verifyAngles, boolean prettyPrint) {
+        this(verifyAngles, prettyPrint, FsyncPolicy.NONE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * This is the initializer for the FileGenerator class
+     * @param verifyAngles is true if every angle written to the flightpath file should be checked against the angle
+     *                     findAngle calculates from the coordinates of the move. Every angle that does not match is
+     *                     reported on System.err
+     * @param prettyPrint is true if the files should be indented
+     * @param fsyncPolicy is how far each file is forced to the disk before it is renamed into place
+     * @param pool is the pool the three files are written in at the same time
+     */
+    public FileGenerator(boolean verifyAngles, boolean prettyPrint, FsyncPolicy fsyncPolicy, ForkJoinPool pool) {
+        this(verifyAngles, prettyPrint, fsyncPolicy, false, pool);
+    }
+
+    /**
+     * This is the initializer for the FileGenerator class
+     * @param verifyAngles is true if every angle written to the flightpath file should be checked against the angle
+     *                     findAngle calculates from the coordinates of the move. Every angle that does not match is
+     *                     reported on System.err
+     * @param prettyPrint is true if the files should be indented
+     * @param fsyncPolicy is how far each file is forced to the disk before it is renamed into place
+     * @param binaryFlightpath is true if the flightpath should also be written to a .bin file in the format of
+     *                         BinaryFlightPath, alongside the JSON file
+     * @param pool is the pool the files are written in at the same time
+     */
+    public FileGenerator(boolean verifyAngles, boolean prettyPrint, FsyncPolicy fsyncPolicy, boolean binaryFlightpath,
+                         ForkJoinPool pool) {
+        this.verifyAngles = verifyAngles;
+        this.prettyPrint = prettyPrint;
+        this.fsyncPolicy = fsyncPolicy;
+        this.binaryFlightpath = binaryFlightpath;
+        this.pool = pool;
+    }
+
+    /**
+     * This is a helper function that returns the number of angles that did not match findAngle
+     * @return int returns the number of mismatched angles, which is always 0 if the angles are not checked
+     */
+    public int getAngleMismatches() {
+        return angleMismatches.get();
+    }
+
+    /**
+     * This function writes the GeoJson file. It takes in a map of the paths of each order, with the order name as the
+     * key, and writes one LineString that flies every path to the restaurant and back again
+     * @param generator is the generator the file is written to
+     * @param orderPaths is the map of the paths of each order
+     * @throws IOException if the file cannot be written
+     */
+    public void generateGeoJsonPath(JsonGenerator generator, Map<String, PackedPath> orderPaths) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "FeatureCollection");
+        generator.writeArrayFieldStart("features");
+        //If there are no orders writes an empty but valid geojson file
+        if (!orderPaths.isEmpty()) {
+            //Adds the needed objects for features properties and geometry to make it a valid GeoJson file
+            generator.writeStartObject();
+            generator.writeStringField("type", "Feature");
+            generator.writeObjectFieldStart("properties");
+            generator.writeEndObject();
+            generator.writeObjectFieldStart("geometry");
+            generator.writeStringField("type", "LineString");
+            generator.writeArrayFieldStart("coordinates");
+            for (PackedPath path : orderPaths.values()) {
+                // Goes through each different order and its related path, from appleton to the restaurant and then
+                // back along the reversed view of the same path
+                for (PackedPath direction : new PackedPath[]{path, path.reversed()}) {
+                    for (int i = 0; i < direction.size(); i++) {
+                        generator.writeStartArray();
+                        generator.writeNumber(direction.lng(i));
+                        generator.writeNumber(direction.lat(i));
+                        generator.writeEndArray();
+                    }
+                }
             }
-            //reverse it back so if this path is reused it does not start the wrong way round
-            Collections.reverse(coordinateList);
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
         }
-        //finalises the construction of the file using the coordinatesNode created
-        geometry.set("coordinates", coordinatesNode);
-        feature.set("geometry", geometry);
-        featureCollection.set("features", objectMapper.createArrayNode().add(feature));
-        return featureCollection;
-    }
-
-    /**
-     * This function generates the deliveries file. It takes in an array of orders and returns a list of
-     * OrdersForFiles.
-     * @param orders is the array of all orders for this date
-     * @return List<OrdersForFiles> returns the generated deliveries file data
-     */
-    private List<OrdersForFiles> generateOrdersJson(Order[] orders){
-        List<OrdersForFiles> toFile = new ArrayList<>();
-        //goes through each order and creates an OrdersForFiles for it, then adds this to toFile
-        for (Order order:orders) {
-            toFile.add(new OrdersForFiles(order.getOrderNo(),
-                    order.getOrderStatus(),
-                    order.getOrderValidationCode(),
-                    order.getPriceTotalInPence()));
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * This function writes the deliveries file, with one entry for every order
+     * @param generator is the generator the file is written to
+     * @param orders is the list of the deliveries file entries of all orders for this date
+     * @throws IOException if the file cannot be written
+     */
+    public void generateOrdersJson(JsonGenerator generator, List<OrdersForFiles> orders) throws IOException {
+        generator.writeStartArray();
+        for (OrdersForFiles order : orders) {
+            generator.writeStartObject();
+            generator.writeStringField("orderNo", order.getOrderNo());
+            generator.writeStringField("orderStatus", order.getOrderStatus().name());
+            generator.writeStringField("orderValidationCode", order.getOrderValidationCode().name());
+            generator.writeNumberField("costInPence", order.getCostInPence());
+            generator.writeEndObject();
         }
-        return toFile;
+        generator.writeEndArray();
     }
 
     /**
-     * This function generates the flightpath file. It takes in a hashmap of the paths of each order, with the order
-     * name as the key. It returns a list of FlightPathForFiles.
-     * @param orderPaths is the hashmap of the paths of each order
-     * @return List<FlightPathForFiles> returns the generated flightpath file data
+     * This function writes the validation metrics file, with the number of orders given each validation code and the
+     * total time each rule of OrderValidator took
+     * @param generator is the generator the file is written to
+     * @param date is the date of the orders
+     * @param metrics is the metrics recorded while the orders of the date were validated
+     * @throws IOException if the file cannot be written
      */
-    private List<FlightPathForFiles> generateFlightpathJson(HashMap<String, List<Coordinate>> orderPaths) {
-        List<FlightPathForFiles> toFile = new ArrayList<>();
-        //starts an iterator that will go through every entry in the hashmap
-        Iterator<Map.Entry<String, List<Coordinate>>> mapIterator = orderPaths.entrySet().iterator();
-        //If there are no orders, returns the empty ArrayList
-        if (!mapIterator.hasNext()){
-            return toFile;
+    public void generateValidationMetricsJson(JsonGenerator generator, String date, ValidationMetrics metrics)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("date", date);
+        generator.writeNumberField("orders", metrics.orders());
+        generator.writeObjectFieldStart("validationCodes");
+        for (OrderValidationCode code : OrderValidationCode.values()) {
+            generator.writeNumberField(code.name(), metrics.count(code));
         }
-        //Gets the first entry of the hashmap
-        Map.Entry<String, List<Coordinate>> entry = mapIterator.next();
-        //Creates a boolean one more. This is here so that the while loop will have one last
-        // loop after .hasNext() is false, to ensure the last order is iterated over
-        boolean oneMore = true;
-        while (mapIterator.hasNext() || oneMore) {
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("ruleNanos");
+        for (ValidationMetrics.Rule rule : ValidationMetrics.Rule.values()) {
+            generator.writeNumberField(rule.name(), metrics.nanos(rule));
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * This function writes the flightpath file. It takes in a map of the paths of each order, with the order name as
+     * the key, and writes every move to the restaurant and back, with a hover at each end
+     * @param generator is the generator the file is written to
+     * @param orderPaths is the map of the paths of each order
+     * @throws IOException if the file cannot be written
+     */
+    public void generateFlightpathJson(JsonGenerator generator, Map<String, PackedPath> orderPaths)
+            throws IOException {
+        generator.writeStartArray();
+        //starts an iterator that will go through every entry in the map
+        Iterator<Map.Entry<String, PackedPath>> mapIterator = orderPaths.entrySet().iterator();
+        //Gets the first entry of the map, or null if there are no orders
+        Map.Entry<String, PackedPath> entry = mapIterator.hasNext() ? mapIterator.next() : null;
+        while (entry != null) {
             //gets the next entry. Now we have access to both the current and next entry
-            Map.Entry<String, List<Coordinate>> nextEntry = mapIterator.hasNext()? mapIterator.next() : null;
-            //iterates through every coordinate in the path for this order
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                //gets the current and next coordinate values
-                Coordinate currentItem = entry.getValue().get(i);
-                Coordinate nextItem = (i < entry.getValue().size() - 1) ? entry.getValue().get(i + 1) : null;
-                //if there is no next coordinated then a hover move is added with the angle 999.0
-                if (nextItem == null){
-                    double angle = 999.0;
-                    toFile.add(new FlightPathForFiles (entry.getKey(),
-                            currentItem.lng,
-                            currentItem.lat,
-                            angle,
-                            currentItem.lng,
-                            currentItem.lat));
-                }
-                else{
-                    //Finds the angle, creates a FlightPathForFiles using the current coordinate, next coordinate
-                    //and angle
-                    double angle = findAngle(new LngLat(currentItem.lng,currentItem.lat),
-                            new LngLat(nextItem.lng, nextItem.lat) );
-                    toFile.add(new FlightPathForFiles (entry.getKey(),
-                            currentItem.lng,
-                            currentItem.lat,
-                            angle,
-                            nextItem.lng,
-                            nextItem.lat));
-                }
+            Map.Entry<String, PackedPath> nextEntry = mapIterator.hasNext() ? mapIterator.next() : null;
+            PackedPath path = entry.getValue();
+            //writes every move in the path for this order, and ends with a hover move with the angle 999.0 at the
+            //restaurant
+            writeMoves(generator, entry.getKey(), path, path.lng(path.size() - 1), path.lat(path.size() - 1));
+            //This is mostly the same as before except it goes along the reversed path back to appleton. If this is
+            //not the last order then the hover at appleton finishes at the beginning of the next orders path
+            PackedPath back = path.reversed();
+            if (nextEntry != null) {
+                writeMoves(generator, entry.getKey(), back, nextEntry.getValue().lng(0), nextEntry.getValue().lat(0));
             }
-            //This only creates the files for the path from appleton to the restaurant, so the path must be
-            //reversed so we can add the path back
-            Collections.reverse(entry.getValue());
-            //This is mostly the same iteration as before except..
-            for (int i = 0; i < entry.getValue().size(); i++) {
-                Coordinate currentItem = entry.getValue().get(i);
-                Coordinate nextItem = (i < entry.getValue().size() - 1) ? entry.getValue().get(i + 1) : null;
-                if (nextItem == null){
-                    //If this is not the last order then the toLng and toLat values are set to the beginning
-                    //Values of the next orders path
-                    if (nextEntry != null) {
-                        Coordinate startNext = nextEntry.getValue().get(0);
-                        double angle = 999.0;
-                        toFile.add(new FlightPathForFiles(entry.getKey(),
-                                currentItem.lng,
-                                currentItem.lat,
-                                angle,
-                                startNext.lng,
-                                startNext.lat));
-                    }
-                    else{
-                        double angle = 999.0;
-                        toFile.add(new FlightPathForFiles (entry.getKey(),
-                                currentItem.lng,
-                                currentItem.lat,
-                                angle,
-                                currentItem.lng,
-                                currentItem.lat));
-                    }
-                }
-                else{
-                    double angle = findAngle(new LngLat(currentItem.lng,currentItem.lat),
-                            new LngLat(nextItem.lng, nextItem.lat) );
-                    toFile.add(new FlightPathForFiles (entry.getKey(),
-                            currentItem.lng,
-                            currentItem.lat,
-                            angle,
-                            nextItem.lng,
-                            nextItem.lat));
-                }
+            else {
+                writeMoves(generator, entry.getKey(), back, back.lng(back.size() - 1), back.lat(back.size() - 1));
             }
-            //The path is reversed again in case we need to reuse it later in the program
-            Collections.reverse(entry.getValue());
             entry = nextEntry;
-            //makes sure that the while loop continues until every order is processed
-            if (entry == null){
-                oneMore = false;
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * This is a helper function that writes every move of a path, followed by a hover move at the last coordinate of
+     * the path
+     * @param generator is the generator the moves are written to
+     * @param orderNo is the order number of the path
+     * @param path is the path whose moves are written
+     * @param hoverToLng is the longitude the hover move finishes at
+     * @param hoverToLat is the latitude the hover move finishes at
+     * @throws IOException if the moves cannot be written
+     */
+    private void writeMoves(JsonGenerator generator, String orderNo, PackedPath path, double hoverToLng,
+                            double hoverToLat) throws IOException {
+        for (int i = 0; i < path.size() - 1; i++) {
+            //Takes the angle from the direction the search chose for this move
+            double angle = path.angle(i);
+            if (verifyAngles) {
+                double expected = findAngle(path.get(i), path.get(i + 1));
+                if (expected != angle) {
+                    angleMismatches.incrementAndGet();
+                    System.err.println("Order " + orderNo + " move " + i + " has angle " + angle
+                            + " but findAngle gives " + expected);
+                }
             }
+            writeMove(generator, orderNo, path.lng(i), path.lat(i), angle, path.lng(i + 1), path.lat(i + 1));
+        }
+        //when there is no next coordinate a hover move is written with the angle 999.0
+        int last = path.size() - 1;
+        writeMove(generator, orderNo, path.lng(last), path.lat(last), 999.0, hoverToLng, hoverToLat);
+    }
+
+    /**
+     * This is a helper function that writes a single move of the flightpath file
+     */
+    static void writeMove(JsonGenerator generator, String orderNo, double fromLng, double fromLat,
+                                  double angle, double toLng, double toLat) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("orderNo", orderNo);
+        generator.writeNumberField("fromLongitude", fromLng);
+        generator.writeNumberField("fromLatitude", fromLat);
+        generator.writeNumberField("angle", angle);
+        generator.writeNumberField("toLongitude", toLng);
+        generator.writeNumberField("toLatitude", toLat);
+        generator.writeEndObject();
+    }
+
+    /**
+     * This is an interface for the functions that write the contents of one of the files
+     */
+    @FunctionalInterface
+    private interface FileBody {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * This is an interface for the functions that write the contents of one of the JSON files
+     */
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * This is a helper function that writes one file. The file is streamed into a temporary file through a large
+     * buffer and only renamed onto the real file once all of it has been written
+     * @param file is the file that is written
+     * @param body is the function that writes the contents of the file
+     * @throws IOException if the file cannot be written, in which case any older file is left as it was
+     */
+    private void writeFile(Path file, FileBody body) throws IOException {
+        try (ChannelOutputStream out = new ChannelOutputStream(file, fsyncPolicy,
+                ChannelOutputStream.DEFAULT_BUFFER_SIZE)) {
+            body.write(out);
+            out.commit();
         }
-        return toFile;
     }
 
     /**
-     * This function calls all three file generators. It takes in a hashmap of the paths of each order, with the order
-     * name as the key, the date and an array of orders.
-     * @param orderPaths is the hashmap of the paths of each order
+     * This is a helper function that writes one JSON file in the same way as writeFile
+     * @param file is the file that is written
+     * @param body is the function that writes the contents of the file
+     * @throws IOException if the file cannot be written, in which case any older file is left as it was
+     */
+    private void writeJsonFile(Path file, JsonBody body) throws IOException {
+        writeFile(file, out -> {
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                //the stream is committed by writeFile, so closing the generator must not close it
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (prettyPrint) {
+                    generator.useDefaultPrettyPrinter();
+                }
+                body.write(generator);
+            }
+        });
+    }
+
+    /**
+     * This function calls all three file generators at the same time and waits for them to finish. It takes in a map
+     * of the paths of each order, with the order name as the key, the date and the deliveries file entries of the
+     * orders.
+     * @param orderPaths is the map of the paths of each order
+     * @param date is the date of the orders
+     * @param orders is the list of the deliveries file entries of all orders for this date
+     */
+    public void generateFiles(Map<String, PackedPath> orderPaths, String date, List<OrdersForFiles> orders) {
+        generateFiles(orderPaths, date, orders, null);
+    }
+
+    /**
+     * This function calls all three file generators at the same time and waits for them to finish, and also writes
+     * the validation metrics file for the date if there are metrics
+     * @param orderPaths is the map of the paths of each order
      * @param date is the date of the orders
-     * @param orders is the array of all orders for this date
-     */
-    public void generateFiles(HashMap<String, List<Coordinate>> orderPaths, String date, Order[] orders) {
-        //Calls the file generator functions
-        ObjectNode geoJson = generateGeoJsonPath(orderPaths);
-        List<OrdersForFiles> deliveries = generateOrdersJson(orders);
-        List<FlightPathForFiles> flightpath = generateFlightpathJson(orderPaths);
-        try {
-            //Writes the data to files in the "resultfiles" directory, with the date used to create the correct names
-            String file = "resultfiles";
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.writeValue(new File(file, "drone-" + date + ".geojson"), geoJson);
-            mapper.writeValue(new File(file, "deliveries-" + date + ".json"), deliveries);
-            mapper.writeValue(new File(file, "flightpath-" + date + ".json"), flightpath);
-        } catch (IOException e) {
-            e.printStackTrace();
+     * @param orders is the list of the deliveries file entries of all orders for this date
+     * @param metrics is the metrics recorded while the orders were validated, or null to not write the file
+     */
+    public void generateFiles(Map<String, PackedPath> orderPaths, String date, List<OrdersForFiles> orders,
+                              ValidationMetrics metrics) {
+        //Writes the files to the "resultfiles" directory, with the date used to create the correct names
+        Path directory = Paths.get("resultfiles");
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+        tasks.add(pool.submit(() -> {
+            writeJsonFile(directory.resolve("drone-" + date + ".geojson"),
+                    generator -> generateGeoJsonPath(generator, orderPaths));
+            return null;
+        }));
+        tasks.add(pool.submit(() -> {
+            writeJsonFile(directory.resolve("deliveries-" + date + ".json"),
+                    generator -> generateOrdersJson(generator, orders));
+            return null;
+        }));
+        tasks.add(pool.submit(() -> {
+            writeJsonFile(directory.resolve("flightpath-" + date + ".json"),
+                    generator -> generateFlightpathJson(generator, orderPaths));
+            return null;
+        }));
+        if (metrics != null) {
+            tasks.add(pool.submit(() -> {
+                writeJsonFile(directory.resolve("validation-metrics-" + date + ".json"),
+                        generator -> generateValidationMetricsJson(generator, date, metrics));
+                return null;
+            }));
+        }
+        if (binaryFlightpath) {
+            tasks.add(pool.submit(() -> {
+                writeFile(directory.resolve("flightpath-" + date + ".bin"),
+                        out -> BinaryFlightPath.write(out, orderPaths));
+                return null;
+            }));
+        }
+        //waits for every file, so one that fails does not stop the others being written
+        for (ForkJoinTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 }
@@ -3,145 +3,133 @@ package uk.ac.ed.inf;
 import uk.ac.ed.inf.ilp.constant.SystemConstants;
 import uk.ac.ed.inf.ilp.data.LngLat;
 import uk.ac.ed.inf.ilp.data.NamedRegion;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
- * This is a class called Coordinate that will store the f, g and h values for the A star calculations, as well as
- * the lng lat values of the coordinate and the parent Coordinate. This includes functions for the initializer
- * and some Override functions to ensure all calculations work as expected.
+ * This is a class that will calculate the flight path from appleton tower to the restaurant
  */
-class Coordinate {
-    double f, g, h;
-    Coordinate parent;
-    double lng, lat;
+public class FlightPath {
+    
+    static LngLatHandler lngLatHandler = new LngLatHandler();
+    //These are all the possible angles the drone can move
+    static final double[] angles = LngLatHandler.DIRECTION_ANGLES;
+    //The epsilon the weighted and anytime searches use if none is given
+    static final double DEFAULT_EPSILON = 2;
+    //The time the anytime search has for each path if no time budget is given
+    static final Duration DEFAULT_TIME_BUDGET = Duration.ofMillis(50);
+    //How much the anytime search lowers epsilon by each time it searches again
+    static final double ANYTIME_EPSILON_STEP = 0.25;
+    //How many times the estimated distance counts in the searches along the legs of a hierarchical route
+    static final double LEG_WEIGHT = 1.5;
+    //What searchUntilCloseTo returns if the deadline passes before the search is finished
+    private static final int TIMED_OUT = -2;
+    //This is the pool that calculateFlightPaths uses to calculate several paths at the same time
+    private final ForkJoinPool pool;
+    //This is how calculateFlightPath searches for a single path
+    private final SearchMode mode;
+    //How many times the estimated distance to the end counts in the weighted search, and the first epsilon the
+    //anytime search uses
+    private final double epsilon;
+    //How long the anytime search may keep improving a path for
+    private final Duration timeBudget;
+    //Every thread keeps one SearchContext that it reuses for all of its searches
+    private final ThreadLocal<SearchContext> contexts = ThreadLocal.withInitial(SearchContext::new);
+    //Every thread keeps one BidirectionalSearch that it reuses for all of its bidirectional searches
+    private final ThreadLocal<BidirectionalSearch> bidirectionalSearches =
+            ThreadLocal.withInitial(BidirectionalSearch::new);
 
     /**
-     * This is the initializer for the Coordinate class
-     * @param lng is the longitude of the coordinate
-     * @param lat is the latitude of the coordinate
+     * This is the initializer for the FlightPath class. Paths calculated together will use the common ForkJoinPool
      */
-    public Coordinate(double lng, double lat) {
-        f = 0;
-        g = 0;
-        h = 0;
-        parent = null;
-        this.lng = lng;
-        this.lat = lat;
+    public FlightPath() {
+        this(ForkJoinPool.commonPool());
     }
 
     /**
-     * This overrides the usual hasCode function
-     * @return  int returns the hashcode of the coordinate
+     * This is the initializer for the FlightPath class
+     * @param pool is the ForkJoinPool that calculateFlightPaths will calculate the paths on
      */
-    @Override
-    public int hashCode() {
-        return Objects.hash(lng, lat);
+    public FlightPath(ForkJoinPool pool) {
+        this(pool, SearchMode.UNIDIRECTIONAL);
     }
 
     /**
-     * This overrides the usual equals function
-     * @param obj is the object that is being compared to
-     * @return boolean returns true if the objects are equal and false if they are not
+     * This is the initializer for the FlightPath class
+     * @param pool is the ForkJoinPool that calculateFlightPaths will calculate the paths on
+     * @param mode is how calculateFlightPath, calculateFlightPaths and calculateFlightPathTree search for each path.
+     *             Only UNIDIRECTIONAL grows a single tree in calculateFlightPathTree
      */
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        Coordinate other = (Coordinate) obj;
-        return other.lng == lng && other.lat == lat;
+    public FlightPath(ForkJoinPool pool, SearchMode mode) {
+        this(pool, mode, DEFAULT_EPSILON, DEFAULT_TIME_BUDGET);
     }
-}
-/**
- * This is a class that will ensure the priority queue sorts by the f value of the Coordinates
- */
-class SortbyF implements Comparator<Coordinate> {
-    public int compare(Coordinate a, Coordinate b)
-    {
-        if (a.f < b.f) return -1;
-        if (a.f > b.f) return 1;
-        return 0;
-    }
-}
 
+    /**
+     * This is the initializer for the FlightPath class
+     * @param pool is the ForkJoinPool that calculateFlightPaths will calculate the paths on
+     * @param mode is how calculateFlightPath, calculateFlightPaths and calculateFlightPathTree search for each path.
+     *             Only UNIDIRECTIONAL grows a single tree in calculateFlightPathTree
+     * @param epsilon is how many times the estimated distance to the end counts in the weighted search, and the first
+     *                epsilon the anytime search uses. It must be at least 1
+     * @param timeBudget is how long the anytime search may keep improving each path for. The first path is always
+     *                   finished, even if it takes longer than this
+     */
+    public FlightPath(ForkJoinPool pool, SearchMode mode, double epsilon, Duration timeBudget) {
+        if (epsilon < 1) {
+            throw new IllegalArgumentException("epsilon must be at least 1 but was " + epsilon);
+        }
+        this.pool = pool;
+        this.mode = mode;
+        this.epsilon = epsilon;
+        this.timeBudget = timeBudget;
+    }
 
-/**
- * This is a class that will calculate the flight path from appleton tower to the restaurant
- */
-public class FlightPath {
-    
-    static LngLatHandler lngLatHandler = new LngLatHandler();
-    //Creates HashSets to store the closedSet and openSet of the Coordinates. This will be used to indicate which
-    //have been visited and which have to be visited next. The openSetHash is here as it is easier to see if a value
-    //is already in a hashset than in a priority queue so it will speed up the program
-    static HashSet<Coordinate> closedSet = new HashSet<>();
-    static HashSet<Coordinate> openSetHash = new HashSet<>();
-    //The path will be stored as a list of Coordinates
-    static List<Coordinate> path = new ArrayList<>();
-    //This Prioritises what Coordinate will be visited next depending on the f value
-    static PriorityQueue<Coordinate> openSet = new PriorityQueue<>(new SortbyF());
-    //These are all the possible angles the drone can move
-    double[] angles = {22.5,45,67.5,90,112.5,135,157.5,180,202.5,225,247.5,270,292.5,315,337.5,360};
-    //This boolean value will help Figure out if the drone has left and then re entered the central area which is not
-    //allowed
-    boolean isInCentral = true;
+    /**
+     * This function returns a hash of how this FlightPath searches, so paths it calculated are only reused by a
+     * FlightPath that would find the same ones. The epsilon and time budget are only part of it for the modes that
+     * use them
+     * @return long returns the hash
+     */
+    public long searchHash() {
+        return searchHash(mode, epsilon, timeBudget);
+    }
 
     /**
-     * This is a helper function that checks if a point is in any of the nofly zones
-     * @param point is the point that is being checked
-     * @param noFly is the array of nofly zones
-     * @return boolean returns true if the point is in a nofly zone and false if it is not
+     * This function returns the hash of how a FlightPath with these settings searches
+     * @param mode is the search mode
+     * @param epsilon is the epsilon of the weighted and anytime searches
+     * @param timeBudget is the time budget of the anytime search
+     * @return long returns the hash
      */
-    private boolean isInNoFly(LngLat point, NamedRegion[] noFly){
-        //iterates through each nofly zone and calls isInRegion to see if the point is inside
-        for (NamedRegion noFlyZone: noFly) {
-            if (lngLatHandler.isInRegion(point,noFlyZone)){
-                return true;
-            }
+    static long searchHash(SearchMode mode, double epsilon, Duration timeBudget) {
+        long hash = mode.ordinal();
+        if (mode == SearchMode.WEIGHTED || mode == SearchMode.ANYTIME) {
+            hash = hash * 31 + Double.doubleToLongBits(epsilon);
         }
-        return false;
+        if (mode == SearchMode.ANYTIME) {
+            hash = hash * 31 + timeBudget.toNanos();
+        }
+        return hash;
     }
 
     /**
      * This is a helper function that checks if the drone has left the central area and then re entered it
-     * @param point is the point that is being checked
-     * @param centralZone is the central zone area
+     * @param lng is the longitude of the point that is being checked
+     * @param lat is the latitude of the point that is being checked
+     * @param geofence is the index of the nofly zones and central area
+     * @param context is the state of the search that is currently running
      * @return boolean returns true if the drone has re entered the central area and false if it has not
      */
-    private boolean hasReEnteredCentral(LngLat point, NamedRegion centralZone) {
-        if (isInCentral == false && lngLatHandler.isInRegion(point,centralZone)){
+    private static boolean hasReEnteredCentral(double lng, double lat, GeofenceIndex geofence, SearchContext context) {
+        if (context.isInCentral == false && geofence.isInCentral(lng, lat)){
             return true;
         }
         return false;
     }
 
-    /**
-     * This is a helper function that checks if a coordinate is already on the open set and returns it if it is
-     * @param neighbour is the coordinate that is being checked
-     * @return Coordinate returns the coordinate if it is on the open set and null if it is not
-     */
-    private static Coordinate isOnOpenSet(Coordinate neighbour){
-        if(openSet.isEmpty()){
-            return null;
-        }
-        //iterates through the coordinates
-        Iterator<Coordinate> iterator = openSet.iterator();
-        Coordinate find = null;
-        while (iterator.hasNext()) {
-            //if the given coordinate matches the coordinate in the open set it will return this
-            Coordinate next = iterator.next();
-            if(next.equals(neighbour)){
-                find = next;
-                break;
-            }
-        }
-        return find;
-    }
-
     /**
      * This is a helper function that finds the angle between two LngLats
      * @param lngLat is the first LngLat
@@ -172,87 +160,399 @@ public class FlightPath {
      * @param centralZone  is the central zone area
      * @param start is the starting point of the drone
      * @param end is the end point of the drone
-     * @return List<Coordinate> returns the path that the drone will take
+     * @return PackedPath returns the path that the drone will take
      */
-    public List<Coordinate> calculateFlightPath(NamedRegion[] noFly, NamedRegion centralZone, LngLat start, LngLat end) {
-        //clears the closed and open sets from previous orders
-        closedSet.clear();
-        openSet.clear();
-        //creates the Coordinate for the start and adds it to the priority queue open set and the open set Hash Map
-        Coordinate startCoordinate = new Coordinate(start.lng(), start.lat());
-        openSet.add(startCoordinate);
-        openSetHash.add(startCoordinate);
-        //iterates while there are still values on the open set or until the path is found
-        while (!openSet.isEmpty()) {
-            //Gets the top coordinate from the priority queue and removes it from the queue
-            Coordinate current = openSet.poll();
-            //adds this to the closed set
-            closedSet.add(current);
-            //creates a LngLat for the current coordinate
-            LngLat currentLngLat = new LngLat(current.lng, current.lat);
-            //sets isInCentral to whether or not the current coordinate is in the central zone
-            isInCentral = lngLatHandler.isInRegion(currentLngLat,centralZone);
-            //if the current coordinate is close to the end coordinate then is will build path and return it
-            if (lngLatHandler.isCloseTo(currentLngLat,end)) {
-                    path = new ArrayList<>();
-                    //iterates through the current coordinates parents and adds them to the path to create the
-                    //route the drone wil take
-                    while (current != null) {
-                        path.add(current);
-                        current = current.parent;
-                    }
-                    //reverses this list, as it was built backwards (from the coordinate close to the restaurant
-                    // back to appleton)
-                    Collections.reverse(path);
-                    return path;
+    public PackedPath calculateFlightPath(NamedRegion[] noFly, NamedRegion centralZone, LngLat start, LngLat end) {
+        return calculateFlightPath(new GeofenceIndex(noFly, centralZone), start, end);
+    }
+
+    /**
+     * This is the function that calculates the flight path from appleton tower to the restaurant, using an index of
+     * the nofly zones and central area that has already been built
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @return PackedPath returns the path that the drone will take
+     */
+    public PackedPath calculateFlightPath(GeofenceIndex geofence, LngLat start, LngLat end) {
+        return planFlightPath(geofence, start, end).path();
+    }
+
+    /**
+     * This is the function that plans the flight path from appleton tower to the restaurant with the search mode of
+     * this FlightPath, and reports how much longer than the shortest path it may be
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @return PlannedPath returns the path that the drone will take with its bound
+     */
+    public PlannedPath planFlightPath(GeofenceIndex geofence, LngLat start, LngLat end) {
+        //every thread reuses its own search state so that several paths can be calculated at the same time without
+        //allocating new arrays for every search
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            BidirectionalSearch search = bidirectionalSearches.get();
+            PackedPath path = search.search(geofence, start, end);
+            return new PlannedPath(path, search.bound, search.forward.expansions + search.backward.expansions);
+        }
+        if (mode == SearchMode.ANYTIME) {
+            return planAnytime(geofence, start, end, contexts.get());
+        }
+        if (mode == SearchMode.HIERARCHICAL) {
+            return planHierarchical(geofence, start, end, contexts.get());
+        }
+        SearchContext context = contexts.get();
+        double weight = mode == SearchMode.WEIGHTED ? epsilon : 1;
+        startSearch(start, context);
+        context.weight = weight;
+        int found = searchUntilCloseTo(geofence, end, context, Long.MAX_VALUE);
+        //if the open set becomes empty the path will be null
+        return found == -1 ? new PlannedPath(null, Double.POSITIVE_INFINITY, context.expansions)
+                : new PlannedPath(buildPath(context.arena, found), weight, context.expansions);
+    }
+
+    /**
+     * This is a helper function that runs the weighted search again and again with a smaller epsilon each time,
+     * starting from the epsilon of this FlightPath, until epsilon reaches 1 or the time budget runs out. The search
+     * that is running when the time budget runs out is abandoned. Each finished search with epsilon e and a path of
+     * length c proves that the shortest path is at least c / e long, so the bound of the shortest path found is its
+     * length over the largest of these
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @param context is the state of the search
+     * @return PlannedPath returns the shortest path that was found with its bound
+     */
+    private PlannedPath planAnytime(GeofenceIndex geofence, LngLat start, LngLat end, SearchContext context) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        PackedPath bestPath = null;
+        double bestLength = Double.POSITIVE_INFINITY;
+        double shortestPossible = 0;
+        int expansions = 0;
+        double weight = epsilon;
+        while (true) {
+            startSearch(start, context);
+            context.weight = weight;
+            //the first search is never abandoned, so that there is always a path if there is one at all
+            int found = searchUntilCloseTo(geofence, end, context, bestPath == null ? Long.MAX_VALUE : deadline);
+            expansions += context.expansions;
+            if (found < 0) {
+                break;
+            }
+            double length = context.arena.g[found];
+            shortestPossible = Math.max(shortestPossible, length / weight);
+            if (length < bestLength) {
+                bestPath = buildPath(context.arena, found);
+                bestLength = length;
+            }
+            if (weight == 1 || bestLength <= shortestPossible || System.nanoTime() >= deadline) {
+                break;
+            }
+            weight = Math.max(1, weight - ANYTIME_EPSILON_STEP);
+        }
+        return bestPath == null ? new PlannedPath(null, Double.POSITIVE_INFINITY, expansions)
+                : new PlannedPath(bestPath, bestLength / shortestPossible, expansions);
+    }
+
+    /**
+     * This is a helper function that finds a route around the nofly zones on the visibility graph and then searches
+     * the lattice from each point of the route to the next. Each leg starts where the last one finished, so the moves
+     * of the whole path are still exactly DRONE_MOVE_DISTANCE long, and since hasReEnteredCentral only depends on the
+     * positions of the drone the legs together never re-enter the central area either. The drone can fly straight
+     * along a leg, so the estimated distance is almost exact and the only thing that would slow the search down is
+     * the huge number of lattice points whose paths are almost as short. The legs are therefore searched with
+     * LEG_WEIGHT, which makes the search commit to one of them. If there is no route on the
+     * graph or a leg can not be flown, the path is searched for directly instead. The bound is measured against the
+     * straight line from the start to the end, since that is the only length the shortest path is known to be above
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @param context is the state of the search
+     * @return PlannedPath returns the path that the drone will take with its bound
+     */
+    private PlannedPath planHierarchical(GeofenceIndex geofence, LngLat start, LngLat end, SearchContext context) {
+        List<LngLat> route = geofence.getVisibilityGraph().route(start, end);
+        int expansions = 0;
+        if (route != null) {
+            PackedPath.Builder path = new PackedPath.Builder(start.lng(), start.lat());
+            for (int i = 1; i < route.size() && path != null; i++) {
+                startSearch(new LngLat(path.lastLng(), path.lastLat()), context);
+                context.weight = LEG_WEIGHT;
+                int found = searchUntilCloseTo(geofence, route.get(i), context, Long.MAX_VALUE);
+                expansions += context.expansions;
+                if (found == -1) {
+                    path = null;
                 }
+                else {
+                    //each leg starts where the last one finished, so its first point is already on the path
+                    path.append(buildPath(context.arena, found));
+                }
+            }
+            if (path != null) {
+                PackedPath built = path.build();
+                double length = built.moves() * SystemConstants.DRONE_MOVE_DISTANCE;
+                double straight = lngLatHandler.distanceTo(start, end);
+                return new PlannedPath(built, straight == 0 ? 1 : Math.max(1, length / straight), expansions);
+            }
+        }
+        startSearch(start, context);
+        int found = searchUntilCloseTo(geofence, end, context, Long.MAX_VALUE);
+        expansions += context.expansions;
+        return found == -1 ? new PlannedPath(null, Double.POSITIVE_INFINITY, expansions)
+                : new PlannedPath(buildPath(context.arena, found), 1, expansions);
+    }
 
-            //iterates through all the possible angles the drone could go in
-            for (double angle: angles) {
-                //calculates the LngLat of the next position the drone would be in if it took this angle by calling
-                //lngLatHandler.nextPosition
-                LngLat nextLngLat = lngLatHandler.nextPosition( currentLngLat, angle);
-                //creates a coordinate using this LngLat value called neighbour
-                Coordinate neighbour = new Coordinate(nextLngLat.lng(), nextLngLat.lat());
-                // if this coordinate has not re-entered the central area after leaving, is not in a no fly zone and
-                // is not in the closed set then the program will calculate its g,h and f values and set its parent
-                if (!hasReEnteredCentral(nextLngLat,centralZone) &&
-                        !isInNoFly(nextLngLat,noFly) &&
-                        !closedSet.contains(neighbour)){
-                    //creates the new g value
-                    double tentativeG = current.g + SystemConstants.DRONE_MOVE_DISTANCE;
-                    //creates a coordinate currNeighbour that will contain the neighbours current values if it is on
-                    //the open set already
-                    Coordinate currNeighbour = null;
-                    if (openSetHash.contains(neighbour)){
-                        currNeighbour = isOnOpenSet(neighbour);
-                    }
-                    //if the neighbour is on the open set and the tentativeG is a lower value then its current one
-                    // then it will update its values with new calculated values
-                     if (currNeighbour != null){
-                        if(tentativeG < currNeighbour.g){
-                            currNeighbour.parent = current;
-                            currNeighbour.g = tentativeG;
-                            currNeighbour.h = lngLatHandler.distanceTo(new LngLat(currNeighbour.lng, currNeighbour.lat),
-                                                                            end);
-                            currNeighbour.f = currNeighbour.g + currNeighbour.h;
-                        }
+    /**
+     * This is the function that calculates the flight path from appleton tower to the restaurant using the given
+     * search state. This is used by calculateFlightPath and lets benchmarks look at the search after it has finished
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @param context is the state of the search, which must not be used by any other search at the same time
+     * @return PackedPath returns the path that the drone will take
+     */
+    PackedPath calculateFlightPath(GeofenceIndex geofence, LngLat start, LngLat end, SearchContext context) {
+        //clears the nodes and open set from the previous search and adds the start to the open set
+        startSearch(start, context);
+        int found = searchUntilCloseTo(geofence, end, context, Long.MAX_VALUE);
+        //if the open set becomes empty it will return null
+        return found == -1 ? null : buildPath(context.arena, found);
+    }
+
+    /**
+     * This is the function that calculates the flight paths from appleton tower to several restaurants by growing a
+     * single search tree from the start. The restaurants are reached in order of their distance from the start. Before
+     * searching for the next restaurant, the tree is checked for a node that is already close to it, and otherwise the
+     * open set is re-ordered towards that restaurant and the same search carries on. The area around the start is
+     * therefore only explored once, however many restaurants there are. The tree is an A* search, so with any other
+     * search mode each path is planned on its own with that mode instead, the same as calculateFlightPaths
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param ends is a map of every end point of the drone, with the key it should be returned under
+     * @return Map returns the path for each key in the same order as ends, with null if no path was found
+     */
+    public <K> Map<K, PackedPath> calculateFlightPathTree(GeofenceIndex geofence, LngLat start,
+                                                             Map<K, LngLat> ends) {
+        if (mode != SearchMode.UNIDIRECTIONAL) {
+            return calculateFlightPaths(geofence, start, ends);
+        }
+        return calculateFlightPathTree(geofence, start, ends, contexts.get());
+    }
+
+    /**
+     * This is the function that calculates the flight paths from appleton tower to several restaurants from a single
+     * search tree, using the given search state
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param ends is a map of every end point of the drone, with the key it should be returned under
+     * @param context is the state of the search, which must not be used by any other search at the same time
+     * @return Map returns the path for each key in the same order as ends, with null if no path was found
+     */
+    <K> Map<K, PackedPath> calculateFlightPathTree(GeofenceIndex geofence, LngLat start, Map<K, LngLat> ends,
+                                                         SearchContext context) {
+        startSearch(start, context);
+        NodeArena arena = context.arena;
+        //visits the restaurants from the closest to the furthest, so the tree grows outwards from the start
+        List<Map.Entry<K, LngLat>> order = new ArrayList<>(ends.entrySet());
+        order.sort(Comparator.comparingDouble(entry -> lngLatHandler.distanceTo(start, entry.getValue())));
+        HashMap<K, PackedPath> found = new HashMap<>();
+        for (Map.Entry<K, LngLat> end : order) {
+            LngLat goal = end.getValue();
+            //looks for the expanded node with the shortest route that is already close to this restaurant
+            int closest = -1;
+            for (int node = 0; node < arena.size(); node++) {
+                if (arena.heapIndex[node] == NodeArena.CLOSED
+                        && (closest == -1 || arena.g[node] < arena.g[closest])
+                        && lngLatHandler.isCloseTo(new LngLat(arena.lng[node], arena.lat[node]), goal)) {
+                    closest = node;
+                }
+            }
+            if (closest == -1) {
+                //points the open set at this restaurant and carries on searching
+                for (int node = 0; node < arena.size(); node++) {
+                    if (context.openSet.contains(node)) {
+                        arena.h[node] = lngLatHandler.distanceTo(new LngLat(arena.lng[node], arena.lat[node]), goal);
+                        arena.f[node] = arena.g[node] + arena.h[node];
                     }
-                     //if it is not on the open set yet then it will be added to the open set with the appropriate
-                     //calculated values and parents
-                    else{
-                        neighbour.parent = current;
-                        neighbour.g = tentativeG;
-                        neighbour.h = lngLatHandler.distanceTo(nextLngLat,end);
-                        neighbour.f = neighbour.g + neighbour.h;
-                        openSet.add(neighbour);
-                        openSetHash.add(neighbour);
+                }
+                context.openSet.rebuild();
+                closest = searchUntilCloseTo(geofence, goal, context, Long.MAX_VALUE);
+                //the node that was found is closed but has not been expanded yet, so it is expanded now so that the
+                //tree can keep growing past it for the next restaurants
+                if (closest != -1) {
+                    expand(closest, geofence, goal, context);
+                }
+            }
+            found.put(end.getKey(), closest == -1 ? null : buildPath(arena, closest));
+        }
+        //returns the paths in the same order as the restaurants were given
+        LinkedHashMap<K, PackedPath> paths = new LinkedHashMap<>();
+        for (K key : ends.keySet()) {
+            paths.put(key, found.get(key));
+        }
+        return paths;
+    }
+
+    /**
+     * This is a helper function that clears a search state and adds the start node to its open set
+     * @param start is the starting point of the drone
+     * @param context is the state of the search
+     */
+    private static void startSearch(LngLat start, SearchContext context) {
+        context.reset(start.lng(), start.lat());
+        int startNode = context.arena.add(start.lng(), start.lat(), 0, 0, NodeArena.NO_PARENT,
+                NodeArena.NO_DIRECTION);
+        context.nodes.put(context.latticeKey(start.lng(), start.lat()), startNode);
+        context.openSet.add(startNode);
+    }
+
+    /**
+     * This is a helper function that runs the A star search until a node close to the end is taken off the open set
+     * @param geofence is the index of the nofly zones and central area
+     * @param end is the end point of the drone
+     * @param context is the state of the search
+     * @param deadline is the System.nanoTime at which the search gives up, or Long.MAX_VALUE if it never does
+     * @return int returns the index of the node close to the end, -1 if the open set became empty first or TIMED_OUT
+     * if the deadline passed first
+     */
+    private int searchUntilCloseTo(GeofenceIndex geofence, LngLat end, SearchContext context, long deadline) {
+        NodeArena arena = context.arena;
+        IndexedOpenSet openSet = context.openSet;
+        //iterates while there are still values on the open set or until the path is found
+        while (!openSet.isEmpty()) {
+            //Gets the top node from the open set and removes it, which also puts it on the closed set
+            int current = openSet.poll();
+            context.expansions++;
+            //only looks at the clock every 256 expansions, as that is slower than expanding a node
+            if ((context.expansions & 255) == 0 && System.nanoTime() >= deadline) {
+                return TIMED_OUT;
+            }
+            //if the current node is close to the end coordinate then the search is finished
+            if (LngLatHandler.distanceTo(arena.lng[current], arena.lat[current], end.lng(), end.lat())
+                    < SystemConstants.DRONE_IS_CLOSE_DISTANCE) {
+                return current;
+            }
+            expand(current, geofence, end, context);
+        }
+        return -1;
+    }
+
+    /**
+     * This is a helper function that adds every neighbour of a node that the drone can fly to onto the open set, or
+     * lowers its g value if it is already on the open set and this route to it is shorter
+     * @param current is the index of the node that is being expanded
+     * @param geofence is the index of the nofly zones and central area
+     * @param end is the end point of the drone, which the h values of new nodes are measured to
+     * @param context is the state of the search
+     */
+    static void expand(int current, GeofenceIndex geofence, LngLat end, SearchContext context) {
+        NodeArena arena = context.arena;
+        LongIntHashMap nodes = context.nodes;
+        IndexedOpenSet openSet = context.openSet;
+        double[] nextLngs = context.neighbourLng;
+        double[] nextLats = context.neighbourLat;
+        //sets isInCentral to whether or not the current node is in the central zone
+        context.isInCentral = geofence.isInCentral(arena.lng[current], arena.lat[current]);
+        //calculates the position the drone would be in after a move in each of the angles from the precomputed moves
+        LngLatHandler.nextPositions(arena.lng[current], arena.lat[current], nextLngs, nextLats);
+        //iterates through all the possible angles the drone could go in
+        for (int direction = 0; direction < angles.length; direction++) {
+            double nextLng = nextLngs[direction];
+            double nextLat = nextLats[direction];
+            //finds the node at this position if it has been reached before
+            long key = context.latticeKey(nextLng, nextLat);
+            int neighbour = nodes.get(key);
+            // if this position has not re-entered the central area after leaving, is not in a no fly zone and
+            // is not in the closed set then the program will calculate its g,h and f values and set its parent
+            if ((neighbour == LongIntHashMap.MISSING || openSet.contains(neighbour)) &&
+                    !hasReEnteredCentral(nextLng, nextLat, geofence, context) &&
+                    !geofence.isInNoFly(nextLng, nextLat)){
+                //creates the new g value
+                double tentativeG = arena.g[current] + SystemConstants.DRONE_MOVE_DISTANCE;
+                //if the neighbour is on the open set and the tentativeG is a lower value then its current one
+                // then it will update its values with new calculated values and move it up the open set
+                if (neighbour != LongIntHashMap.MISSING){
+                    if(tentativeG < arena.g[neighbour]){
+                        arena.parent[neighbour] = current;
+                        arena.direction[neighbour] = (byte) direction;
+                        arena.g[neighbour] = tentativeG;
+                        arena.f[neighbour] = tentativeG + arena.h[neighbour];
+                        openSet.decreaseKey(neighbour);
                     }
                 }
+                //if it is not on the open set yet then it will be added to the open set with the appropriate
+                //calculated values and parents
+                else{
+                    neighbour = arena.add(nextLng, nextLat, tentativeG,
+                            context.weight * LngLatHandler.distanceTo(nextLng, nextLat, end.lng(), end.lat()),
+                            current, direction);
+                    nodes.put(key, neighbour);
+                    openSet.add(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that builds the path to a node by following the parents of the nodes back to the start
+     * @param arena is the arena that holds the nodes of the search
+     * @param node is the index of the last node of the path
+     * @return PackedPath returns the path from the start to the node
+     */
+    static PackedPath buildPath(NodeArena arena, int node) {
+        //counts the nodes on the path by following the parents back to the start
+        int size = 0;
+        for (int n = node; n != NodeArena.NO_PARENT; n = arena.parent[n]) {
+            size++;
+        }
+        double[] lng = new double[size];
+        double[] lat = new double[size];
+        byte[] directions = new byte[size - 1];
+        //fills the arrays from the back, as the parents go from the coordinate close to the restaurant back to
+        //appleton
+        for (int i = size - 1; i >= 0; i--) {
+            lng[i] = arena.lng[node];
+            lat[i] = arena.lat[node];
+            if (i > 0) {
+                directions[i - 1] = arena.direction[node];
             }
+            node = arena.parent[node];
+        }
+        return new PackedPath(lng, lat, directions, false);
+    }
+
+    /**
+     * This is the function that calculates the flight paths from appleton tower to several restaurants at the same
+     * time. Each path is calculated as its own task on the pool of this FlightPath
+     * @param noFly is the array of nofly zones
+     * @param centralZone is the central zone area
+     * @param start is the starting point of the drone
+     * @param ends is a map of every end point of the drone, with the key it should be returned under
+     * @return Map returns the path for each key in the same order as ends, with null if no path was found
+     */
+    public <K> Map<K, PackedPath> calculateFlightPaths(NamedRegion[] noFly, NamedRegion centralZone, LngLat start,
+                                                          Map<K, LngLat> ends) {
+        return calculateFlightPaths(new GeofenceIndex(noFly, centralZone), start, ends);
+    }
 
+    /**
+     * This is the function that calculates the flight paths from appleton tower to several restaurants at the same
+     * time, using an index of the nofly zones and central area that has already been built
+     * @param geofence is the index of the nofly zones and central area
+     * @param start is the starting point of the drone
+     * @param ends is a map of every end point of the drone, with the key it should be returned under
+     * @return Map returns the path for each key in the same order as ends, with null if no path was found
+     */
+    public <K> Map<K, PackedPath> calculateFlightPaths(GeofenceIndex geofence, LngLat start, Map<K, LngLat> ends) {
+        //submits one search for every end point
+        LinkedHashMap<K, ForkJoinTask<PackedPath>> tasks = new LinkedHashMap<>();
+        for (Map.Entry<K, LngLat> end : ends.entrySet()) {
+            tasks.put(end.getKey(), pool.submit(() -> calculateFlightPath(geofence, start, end.getValue())));
         }
-        //if the open set becomes empty it will return null
-        return null;
+        //waits for every search to finish and collects the paths
+        LinkedHashMap<K, PackedPath> paths = new LinkedHashMap<>();
+        for (Map.Entry<K, ForkJoinTask<PackedPath>> task : tasks.entrySet()) {
+            paths.put(task.getKey(), task.getValue().join());
+        }
+        return paths;
     }
 }
@@ -0,0 +1,17 @@
+package uk.ac.ed.inf;
+
+/**
+ * This is an enum of how far an output file is forced to the disk before it counts as written. Files are always
+ * written to a temporary file and renamed into place, so a crash of the program never leaves part of a file behind,
+ * but only forcing them makes sure a crash of the whole machine does not either
+ */
+public enum FsyncPolicy {
+    //The file is left for the operating system to write whenever it likes, which is the fastest
+    NONE,
+    //The contents of the temporary file are forced to the disk before it is renamed, so the renamed file is never
+    //empty or cut short
+    FILE,
+    //The same as FILE, and the directory is forced to the disk after the rename as well, so the rename itself is not
+    //lost. Not every system can force a directory, and on those this is the same as FILE
+    FILE_AND_DIRECTORY
+}
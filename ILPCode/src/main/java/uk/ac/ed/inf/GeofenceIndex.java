@@ -0,0 +1,313 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a class that answers whether a point is in a nofly zone or in the central area without ray casting against
+ * every region. It is built once from the regions of a day. Each set of regions is covered by a uniform grid, and
+ * every cell of the grid is marked as fully inside a region, fully outside every region, or on the boundary of a
+ * region. Only points in boundary cells need the exact test from LngLatHandler.isInRegion, and only against the
+ * regions whose edges cross that cell
+ */
+public class GeofenceIndex {
+    //The grids never have more than this many cells along one side
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+
+    private final NamedRegion[] noFlyZones;
+    private final NamedRegion centralArea;
+    private final RegionGrid noFlyGrid;
+    private final RegionGrid centralGrid;
+    //The graph the hierarchical search routes around the nofly zones on, which is only built when it is first needed
+    private VisibilityGraph visibilityGraph;
+
+    /**
+     * This is the initializer for the GeofenceIndex class. The grid cells are the size of one drone move
+     * @param noFlyZones is the array of nofly zones
+     * @param centralArea is the central area
+     */
+    public GeofenceIndex(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        this(noFlyZones, centralArea, SystemConstants.DRONE_MOVE_DISTANCE);
+    }
+
+    /**
+     * This is the initializer for the GeofenceIndex class
+     * @param noFlyZones is the array of nofly zones
+     * @param centralArea is the central area
+     * @param cellSize is the width and height of the grid cells in degrees
+     */
+    public GeofenceIndex(NamedRegion[] noFlyZones, NamedRegion centralArea, double cellSize) {
+        this.noFlyZones = noFlyZones;
+        this.centralArea = centralArea;
+        noFlyGrid = new RegionGrid(noFlyZones, cellSize);
+        centralGrid = new RegionGrid(new NamedRegion[]{centralArea}, cellSize);
+    }
+
+    /**
+     * This is a helper function that returns the nofly zones this index was built from
+     * @return NamedRegion[] returns the nofly zones
+     */
+    public NamedRegion[] getNoFlyZones() {
+        return noFlyZones;
+    }
+
+    /**
+     * This is a helper function that returns the central area this index was built from
+     * @return NamedRegion returns the central area
+     */
+    public NamedRegion getCentralArea() {
+        return centralArea;
+    }
+
+    /**
+     * This function checks if a point is in any of the nofly zones
+     * @param lng is the longitude of the point
+     * @param lat is the latitude of the point
+     * @return boolean returns true if the point is in a nofly zone and false if it is not
+     */
+    public boolean isInNoFly(double lng, double lat) {
+        return noFlyGrid.contains(lng, lat);
+    }
+
+    /**
+     * This function checks if a point is in the central area
+     * @param lng is the longitude of the point
+     * @param lat is the latitude of the point
+     * @return boolean returns true if the point is in the central area and false if it is not
+     */
+    public boolean isInCentral(double lng, double lat) {
+        return centralGrid.contains(lng, lat);
+    }
+
+    /**
+     * This is a helper function that returns the visibility graph of the nofly zones and central area, building it the
+     * first time it is asked for
+     * @return VisibilityGraph returns the visibility graph
+     */
+    synchronized VisibilityGraph getVisibilityGraph() {
+        if (visibilityGraph == null) {
+            visibilityGraph = new VisibilityGraph(this);
+        }
+        return visibilityGraph;
+    }
+
+    /**
+     * This is a class that covers a set of regions with a uniform grid
+     */
+    private static class RegionGrid {
+        private static final byte OUTSIDE = 0;
+        private static final byte INSIDE = 1;
+        private static final byte BOUNDARY = 2;
+        //Cells are made this much larger when checking them against the region edges, so that points very close to an
+        //edge are always given the exact test
+        private static final double EDGE_MARGIN = 1e-12;
+
+        private final LngLatHandler lngLatHandler = new LngLatHandler();
+        private final NamedRegion[] regions;
+        //The bounding box of each region, as minLng, minLat, maxLng, maxLat
+        private final double[][] boxes;
+        private final double minLng, minLat, cellWidth, cellHeight;
+        private final int columns, rows;
+        private final byte[] states;
+        //The regions whose edges cross each boundary cell
+        private final int[][] candidates;
+
+        /**
+         * This is the initializer for the RegionGrid class
+         * @param regions is the array of regions the grid covers
+         * @param cellSize is the width and height of the grid cells in degrees
+         */
+        RegionGrid(NamedRegion[] regions, double cellSize) {
+            this.regions = regions;
+            boxes = new double[regions.length][];
+            double lowLng = Double.POSITIVE_INFINITY, lowLat = Double.POSITIVE_INFINITY;
+            double highLng = Double.NEGATIVE_INFINITY, highLat = Double.NEGATIVE_INFINITY;
+            for (int r = 0; r < regions.length; r++) {
+                boxes[r] = boundingBox(regions[r]);
+                lowLng = Math.min(lowLng, boxes[r][0]);
+                lowLat = Math.min(lowLat, boxes[r][1]);
+                highLng = Math.max(highLng, boxes[r][2]);
+                highLat = Math.max(highLat, boxes[r][3]);
+            }
+            //if there are no regions the grid has a single cell that is outside everything
+            if (regions.length == 0) {
+                lowLng = lowLat = highLng = highLat = 0;
+            }
+            minLng = lowLng;
+            minLat = lowLat;
+            columns = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, (int) Math.ceil((highLng - lowLng) / cellSize)));
+            rows = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, (int) Math.ceil((highLat - lowLat) / cellSize)));
+            cellWidth = Math.max((highLng - lowLng) / columns, Double.MIN_NORMAL);
+            cellHeight = Math.max((highLat - lowLat) / rows, Double.MIN_NORMAL);
+            states = new byte[columns * rows];
+            candidates = new int[columns * rows][];
+            classifyCells();
+        }
+
+        /**
+         * This is a helper function that marks every cell as inside, outside or on the boundary of the regions
+         */
+        private void classifyCells() {
+            List<List<Integer>> crossing = new ArrayList<>();
+            for (int i = 0; i < states.length; i++) {
+                crossing.add(new ArrayList<>());
+            }
+            for (int r = 0; r < regions.length; r++) {
+                LngLat[] vertices = regions[r].vertices();
+                //only the cells under the bounding box of the region can be affected by it
+                int firstColumn = column(boxes[r][0]), lastColumn = column(boxes[r][2]);
+                int firstRow = row(boxes[r][1]), lastRow = row(boxes[r][3]);
+                for (int y = firstRow; y <= lastRow; y++) {
+                    for (int x = firstColumn; x <= lastColumn; x++) {
+                        int cell = y * columns + x;
+                        double cellLng = minLng + x * cellWidth;
+                        double cellLat = minLat + y * cellHeight;
+                        if (edgeCrossesCell(vertices, cellLng - EDGE_MARGIN, cellLat - EDGE_MARGIN,
+                                cellLng + cellWidth + EDGE_MARGIN, cellLat + cellHeight + EDGE_MARGIN)) {
+                            crossing.get(cell).add(r);
+                        }
+                        //if no edge crosses the cell, every point in it is on the same side of the region as its
+                        //centre
+                        else if (lngLatHandler.isInRegion(
+                                new LngLat(cellLng + cellWidth / 2, cellLat + cellHeight / 2), regions[r])) {
+                            states[cell] = INSIDE;
+                        }
+                    }
+                }
+            }
+            for (int cell = 0; cell < states.length; cell++) {
+                if (states[cell] != INSIDE && !crossing.get(cell).isEmpty()) {
+                    states[cell] = BOUNDARY;
+                    candidates[cell] = crossing.get(cell).stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+        }
+
+        /**
+         * This function checks if a point is in any of the regions of the grid
+         * @param lng is the longitude of the point
+         * @param lat is the latitude of the point
+         * @return boolean returns true if the point is in one of the regions and false if it is not
+         */
+        boolean contains(double lng, double lat) {
+            if (lng < minLng || lat < minLat || lng > minLng + columns * cellWidth
+                    || lat > minLat + rows * cellHeight) {
+                return false;
+            }
+            int cell = row(lat) * columns + column(lng);
+            byte state = states[cell];
+            if (state != BOUNDARY) {
+                return state == INSIDE;
+            }
+            //boundary cells are checked exactly against the regions that cross them
+            LngLat point = null;
+            for (int r : candidates[cell]) {
+                double[] box = boxes[r];
+                if (lng < box[0] || lat < box[1] || lng > box[2] || lat > box[3]) {
+                    continue;
+                }
+                if (point == null) {
+                    point = new LngLat(lng, lat);
+                }
+                if (lngLatHandler.isInRegion(point, regions[r])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * This is a helper function that finds the column of the grid a longitude is in
+         * @param lng is the longitude
+         * @return int returns the column, clamped to the grid
+         */
+        private int column(double lng) {
+            return Math.max(0, Math.min(columns - 1, (int) ((lng - minLng) / cellWidth)));
+        }
+
+        /**
+         * This is a helper function that finds the row of the grid a latitude is in
+         * @param lat is the latitude
+         * @return int returns the row, clamped to the grid
+         */
+        private int row(double lat) {
+            return Math.max(0, Math.min(rows - 1, (int) ((lat - minLat) / cellHeight)));
+        }
+
+        /**
+         * This is a helper function that finds the bounding box of a region
+         * @param region is the region
+         * @return double[] returns the bounding box as minLng, minLat, maxLng, maxLat
+         */
+        private static double[] boundingBox(NamedRegion region) {
+            double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (LngLat vertex : region.vertices()) {
+                box[0] = Math.min(box[0], vertex.lng());
+                box[1] = Math.min(box[1], vertex.lat());
+                box[2] = Math.max(box[2], vertex.lng());
+                box[3] = Math.max(box[3], vertex.lat());
+            }
+            return box;
+        }
+
+        /**
+         * This is a helper function that checks if any edge of a region passes through a rectangle
+         * @param vertices is the array of vertices of the region
+         * @param left is the smallest longitude of the rectangle
+         * @param bottom is the smallest latitude of the rectangle
+         * @param right is the largest longitude of the rectangle
+         * @param top is the largest latitude of the rectangle
+         * @return boolean returns true if an edge passes through the rectangle and false if none do
+         */
+        private static boolean edgeCrossesCell(LngLat[] vertices, double left, double bottom, double right,
+                                               double top) {
+            for (int i = 0; i < vertices.length; i++) {
+                LngLat from = vertices[i];
+                LngLat to = vertices[(i + 1) % vertices.length];
+                if (segmentCrossesRectangle(from.lng(), from.lat(), to.lng(), to.lat(), left, bottom, right, top)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * This is a helper function that checks if a line segment passes through a rectangle by clipping the segment
+         * against each side of the rectangle in turn
+         * @return boolean returns true if part of the segment is inside the rectangle and false if it is not
+         */
+        private static boolean segmentCrossesRectangle(double x1, double y1, double x2, double y2,
+                                                       double left, double bottom, double right, double top) {
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            double[] p = {-dx, dx, -dy, dy};
+            double[] q = {x1 - left, right - x1, y1 - bottom, top - y1};
+            double enter = 0;
+            double exit = 1;
+            for (int i = 0; i < 4; i++) {
+                if (p[i] == 0) {
+                    //the segment is parallel to this side, so it misses the rectangle if it is outside this side
+                    if (q[i] < 0) {
+                        return false;
+                    }
+                } else {
+                    double t = q[i] / p[i];
+                    if (p[i] < 0) {
+                        enter = Math.max(enter, t);
+                    } else {
+                        exit = Math.min(exit, t);
+                    }
+                    if (enter > exit) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
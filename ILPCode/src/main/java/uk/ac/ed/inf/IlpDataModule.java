@@ -0,0 +1,470 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.*;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is a Jackson module that reads the data objects of the Rest server with hand written deserializers instead of
+ * Jackson's reflective bean and record binding. Each deserializer reads the fields of its object straight from the
+ * parser and calls the constructor or setters itself.
+ * <p>
+ * Pizzas and restaurants are interned while they are read, so every pizza in an order is the same object as the
+ * equal pizza on the restaurant's menu, and a restaurant that is read again is the same object as before. This keeps
+ * one copy of each name however many orders there are, and lets the comparisons in OrderValidator succeed on the
+ * first check of the strings. Only the pizzas on the menus are kept: a pizza in an order is looked up among them but
+ * never added, so orders with unknown pizzas or wrong prices can not make the module grow. When a menu changes, the
+ * pizzas and pizza names that no kept menu lists any more are dropped.
+ * <p>
+ * The objects are read the same as the default binding would read them: missing fields are left as the no argument
+ * constructor or a record would leave them, and unknown fields are handled as the DeserializationContext says
+ */
+public class IlpDataModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    //Every pizza on the menu of a restaurant that has been read by this module, with each one as its own key
+    private final Map<Pizza, Pizza> pizzas = new ConcurrentHashMap<>();
+    //The latest version of every restaurant that has been read by this module, with its name as the key
+    private final Map<String, Restaurant> restaurants = new ConcurrentHashMap<>();
+    //The names of every pizza in pizzas, with each one as its own key
+    private final Map<String, String> pizzaNames = new ConcurrentHashMap<>();
+    //The names of every restaurant and region that has been read by this module
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * This is the initializer for the IlpDataModule class
+     */
+    public IlpDataModule() {
+        super("IlpDataModule");
+        addDeserializer(LngLat.class, new LngLatDeserializer());
+        addDeserializer(Pizza.class, new PizzaDeserializer(false));
+        addDeserializer(CreditCardInformation.class, new CreditCardDeserializer());
+        addDeserializer(Order.class, new OrderDeserializer());
+        addDeserializer(Restaurant.class, new RestaurantDeserializer());
+        addDeserializer(NamedRegion.class, new NamedRegionDeserializer());
+    }
+
+    /**
+     * This is a helper function that returns the number of different menu pizzas that are kept
+     * @return int returns the number of pizzas
+     */
+    public int internedPizzas() {
+        return pizzas.size();
+    }
+
+    /**
+     * This is a helper function that returns the number of different menu pizza names that are kept
+     * @return int returns the number of names
+     */
+    public int internedPizzaNames() {
+        return pizzaNames.size();
+    }
+
+    /**
+     * This is a helper function that returns the one copy of a name that is kept
+     * @param kept is the names the copy is kept in
+     * @param name is the name
+     * @return String returns the kept copy of the name, or null if the name is null
+     */
+    private static String intern(Map<String, String> kept, String name) {
+        if (name == null) {
+            return null;
+        }
+        String copy = kept.putIfAbsent(name, name);
+        return copy == null ? name : copy;
+    }
+
+    /**
+     * This is a helper function that returns the one copy of a pizza that is kept
+     * @param pizza is the pizza
+     * @param menu is true if the pizza is on a menu, so it is kept if it is not already, and false if it is only
+     *             looked up
+     * @return Pizza returns the kept copy of the pizza, or the pizza itself if no copy is kept
+     */
+    private Pizza intern(Pizza pizza, boolean menu) {
+        Pizza kept = menu ? pizzas.putIfAbsent(pizza, pizza) : pizzas.get(pizza);
+        return kept == null ? pizza : kept;
+    }
+
+    /**
+     * This is a helper function that returns the kept copy of a pizza name without keeping it if there is none, so
+     * names that come from orders are never added
+     * @param name is the name
+     * @return String returns the kept copy of the name, or the name itself if no copy is kept
+     */
+    private String lookUp(String name) {
+        return name == null ? null : pizzaNames.getOrDefault(name, name);
+    }
+
+    /**
+     * This is a helper function that drops the pizzas of a restaurant's old menu, and their names, when neither its
+     * new menu nor the menu of any other kept restaurant lists them, so the pizzas that are kept do not grow each
+     * time a menu changes
+     * @param old is the restaurant as it was read before
+     * @param read is the restaurant as it has just been read
+     */
+    private void dropOldMenu(Restaurant old, Restaurant read) {
+        if (old.menu() == null) {
+            return;
+        }
+        //the pizzas and names on the new menu and on the menus of the other restaurants, which are all still kept
+        Set<Pizza> keptPizzas = new HashSet<>();
+        addMenu(keptPizzas, read);
+        for (Restaurant restaurant : restaurants.values()) {
+            if (restaurant != old) {
+                addMenu(keptPizzas, restaurant);
+            }
+        }
+        Set<String> keptNames = new HashSet<>();
+        for (Pizza pizza : keptPizzas) {
+            keptNames.add(pizza.name());
+        }
+        for (Pizza pizza : old.menu()) {
+            if (pizza != null && !keptPizzas.contains(pizza)) {
+                pizzas.remove(pizza);
+                if (pizza.name() != null && !keptNames.contains(pizza.name())) {
+                    pizzaNames.remove(pizza.name());
+                }
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that adds every pizza on the menu of a restaurant to a set
+     * @param menuPizzas is the set the pizzas are added to
+     * @param restaurant is the restaurant
+     */
+    private static void addMenu(Set<Pizza> menuPizzas, Restaurant restaurant) {
+        if (restaurant.menu() == null) {
+            return;
+        }
+        for (Pizza pizza : restaurant.menu()) {
+            if (pizza != null) {
+                menuPizzas.add(pizza);
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that checks if two restaurants have the same details. The equals of a record only
+     * compares its arrays by reference, so the arrays are compared here by their contents
+     * @param first is the first restaurant
+     * @param second is the second restaurant
+     * @return boolean returns true if every detail is the same
+     */
+    private static boolean sameRestaurant(Restaurant first, Restaurant second) {
+        return Objects.equals(first.name(), second.name()) && Objects.equals(first.location(), second.location())
+                && Arrays.equals(first.openingDays(), second.openingDays())
+                && Arrays.equals(first.menu(), second.menu());
+    }
+
+    /**
+     * This is a helper function that moves the parser onto the first field of an object
+     * @param parser is the parser, on the start of the object or on its first field
+     * @param context is the context of the deserialization
+     * @param type is the type that is being read
+     * @return JsonToken returns the token the parser is on
+     * @throws IOException if the parser is not on an object
+     */
+    private static JsonToken startObject(JsonParser parser, DeserializationContext context, Class<?> type)
+            throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (JsonToken) context.handleUnexpectedToken(type, parser);
+        }
+        return token;
+    }
+
+    /**
+     * This is a helper function that reads a string value, allowing it to be null
+     * @param parser is the parser, on the value
+     * @return String returns the value
+     * @throws IOException if the value cannot be read
+     */
+    private static String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    /**
+     * This is a helper function that reads the value of an enum by its name, allowing it to be null
+     * @param parser is the parser, on the value
+     * @param context is the context of the deserialization
+     * @param type is the enum that is being read
+     * @return E returns the value
+     * @throws IOException if the value is not one of the values of the enum
+     */
+    private static <E extends Enum<E>> E readEnum(JsonParser parser, DeserializationContext context, Class<E> type)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        String text = parser.getText();
+        try {
+            return Enum.valueOf(type, text);
+        } catch (IllegalArgumentException e) {
+            return type.cast(context.handleWeirdStringValue(type, text, "not one of the values of the enum"));
+        }
+    }
+
+    /**
+     * This is a helper function that reads an array, with each element that is not null read by the given reader
+     * @param parser is the parser, on the start of the array
+     * @param context is the context of the deserialization
+     * @param reader is the function each element is read with
+     * @return List<T> returns the elements, or null if the array is null
+     * @throws IOException if the value is not an array or an element cannot be read
+     */
+    private static <T> List<T> readArray(JsonParser parser, DeserializationContext context, ElementReader<T> reader)
+            throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            context.handleUnexpectedToken(List.class, parser);
+        }
+        List<T> elements = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            elements.add(parser.currentToken() == JsonToken.VALUE_NULL ? null : reader.read(parser, context));
+        }
+        return elements;
+    }
+
+    /**
+     * This is an interface for the functions that read one element of an array
+     */
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(JsonParser parser, DeserializationContext context) throws IOException;
+    }
+
+    /**
+     * This is a class that reads a LngLat
+     */
+    private static class LngLatDeserializer extends JsonDeserializer<LngLat> {
+        @Override
+        public LngLat deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            double lng = 0;
+            double lat = 0;
+            for (JsonToken token = startObject(parser, context, LngLat.class); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "lng" -> lng = parser.getValueAsDouble();
+                    case "lat" -> lat = parser.getValueAsDouble();
+                    default -> context.handleUnknownProperty(parser, this, LngLat.class, field);
+                }
+            }
+            return new LngLat(lng, lat);
+        }
+    }
+
+    /**
+     * This is a class that reads a Pizza and interns it
+     */
+    private class PizzaDeserializer extends JsonDeserializer<Pizza> {
+        //Whether the pizzas are read from a menu, and so are kept, or only looked up among the menu pizzas
+        private final boolean menu;
+
+        /**
+         * This is the initializer for the PizzaDeserializer class
+         * @param menu is true if the pizzas are read from a menu and false if they are read from an order
+         */
+        private PizzaDeserializer(boolean menu) {
+            this.menu = menu;
+        }
+
+        @Override
+        public Pizza deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String name = null;
+            int priceInPence = 0;
+            for (JsonToken token = startObject(parser, context, Pizza.class); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = menu ? intern(pizzaNames, readString(parser)) : lookUp(readString(parser));
+                    case "priceInPence" -> priceInPence = parser.getValueAsInt();
+                    default -> context.handleUnknownProperty(parser, this, Pizza.class, field);
+                }
+            }
+            return intern(new Pizza(name, priceInPence), menu);
+        }
+    }
+
+    /**
+     * This is a class that reads a CreditCardInformation
+     */
+    private static class CreditCardDeserializer extends JsonDeserializer<CreditCardInformation> {
+        @Override
+        public CreditCardInformation deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            CreditCardInformation card = new CreditCardInformation();
+            for (JsonToken token = startObject(parser, context, CreditCardInformation.class);
+                 token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "creditCardNumber" -> card.setCreditCardNumber(readString(parser));
+                    case "creditCardExpiry" -> card.setCreditCardExpiry(readString(parser));
+                    case "cvv" -> card.setCvv(readString(parser));
+                    default -> context.handleUnknownProperty(parser, this, CreditCardInformation.class, field);
+                }
+            }
+            return card;
+        }
+    }
+
+    /**
+     * This is a class that reads an Order, with its pizzas interned
+     */
+    private class OrderDeserializer extends JsonDeserializer<Order> {
+        private final PizzaDeserializer pizzaDeserializer = new PizzaDeserializer(false);
+        private final CreditCardDeserializer cardDeserializer = new CreditCardDeserializer();
+
+        @Override
+        public Order deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            Order order = new Order();
+            for (JsonToken token = startObject(parser, context, Order.class); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "orderNo" -> order.setOrderNo(readString(parser));
+                    case "orderDate" -> order.setOrderDate(readDate(parser, context));
+                    case "orderStatus" -> order.setOrderStatus(readEnum(parser, context, OrderStatus.class));
+                    case "orderValidationCode" ->
+                            order.setOrderValidationCode(readEnum(parser, context, OrderValidationCode.class));
+                    case "priceTotalInPence" -> order.setPriceTotalInPence(parser.getValueAsInt());
+                    case "pizzasInOrder" -> {
+                        List<Pizza> pizzas = readArray(parser, context, pizzaDeserializer::deserialize);
+                        order.setPizzasInOrder(pizzas == null ? null : pizzas.toArray(new Pizza[0]));
+                    }
+                    case "creditCardInformation" -> order.setCreditCardInformation(
+                            parser.currentToken() == JsonToken.VALUE_NULL ? null
+                                    : cardDeserializer.deserialize(parser, context));
+                    default -> context.handleUnknownProperty(parser, this, Order.class, field);
+                }
+            }
+            return order;
+        }
+
+        /**
+         * This is a helper function that reads a date written as yyyy-mm-dd. Any other form is read by Jackson as
+         * usual
+         */
+        private LocalDate readDate(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                try {
+                    return LocalDate.parse(parser.getText());
+                } catch (DateTimeParseException e) {
+                    return (LocalDate) context.handleWeirdStringValue(LocalDate.class, parser.getText(),
+                            e.getMessage());
+                }
+            }
+            return context.readValue(parser, LocalDate.class);
+        }
+    }
+
+    /**
+     * This is a class that reads a Restaurant, with its name and menu interned
+     */
+    private class RestaurantDeserializer extends JsonDeserializer<Restaurant> {
+        private final PizzaDeserializer pizzaDeserializer = new PizzaDeserializer(true);
+        private final LngLatDeserializer lngLatDeserializer = new LngLatDeserializer();
+
+        @Override
+        public Restaurant deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String name = null;
+            LngLat location = null;
+            DayOfWeek[] openingDays = null;
+            Pizza[] menu = null;
+            for (JsonToken token = startObject(parser, context, Restaurant.class); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = intern(names, readString(parser));
+                    case "location" -> location = parser.currentToken() == JsonToken.VALUE_NULL ? null
+                            : lngLatDeserializer.deserialize(parser, context);
+                    case "openingDays" -> {
+                        List<DayOfWeek> days = readArray(parser, context,
+                                (p, c) -> readEnum(p, c, DayOfWeek.class));
+                        openingDays = days == null ? null : days.toArray(new DayOfWeek[0]);
+                    }
+                    case "menu" -> {
+                        List<Pizza> pizzas = readArray(parser, context, pizzaDeserializer::deserialize);
+                        menu = pizzas == null ? null : pizzas.toArray(new Pizza[0]);
+                    }
+                    default -> context.handleUnknownProperty(parser, this, Restaurant.class, field);
+                }
+            }
+            Restaurant restaurant = new Restaurant(name, location, openingDays, menu);
+            if (name == null) {
+                return restaurant;
+            }
+            //a restaurant whose details have changed since it was last read replaces the kept one
+            return restaurants.compute(name, (key, old) -> {
+                if (old == null) {
+                    return restaurant;
+                }
+                if (sameRestaurant(old, restaurant)) {
+                    return old;
+                }
+                dropOldMenu(old, restaurant);
+                return restaurant;
+            });
+        }
+    }
+
+    /**
+     * This is a class that reads a NamedRegion
+     */
+    private class NamedRegionDeserializer extends JsonDeserializer<NamedRegion> {
+        private final LngLatDeserializer lngLatDeserializer = new LngLatDeserializer();
+
+        @Override
+        public NamedRegion deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String name = null;
+            LngLat[] vertices = null;
+            for (JsonToken token = startObject(parser, context, NamedRegion.class); token == JsonToken.FIELD_NAME;
+                 token = parser.nextToken()) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = intern(names, readString(parser));
+                    case "vertices" -> {
+                        List<LngLat> points = readArray(parser, context, lngLatDeserializer::deserialize);
+                        vertices = points == null ? null : points.toArray(new LngLat[0]);
+                    }
+                    default -> context.handleUnknownProperty(parser, this, NamedRegion.class, field);
+                }
+            }
+            return new NamedRegion(name, vertices);
+        }
+    }
+}
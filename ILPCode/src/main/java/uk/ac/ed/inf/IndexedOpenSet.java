@@ -0,0 +1,182 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+/**
+ * This is a class that stores the open set of the A star search. It is a binary heap of node indices from a
+ * NodeArena, ordered by the f value of the nodes. If two nodes have the same f value, the one with the lower h value
+ * (the one closer to the end) comes first. The arena remembers the position of every node in the heap, so a node that
+ * is already open can be moved up the heap when a shorter route to it is found, instead of searching through the
+ * whole queue
+ */
+class IndexedOpenSet {
+    private final NodeArena arena;
+    private int[] heap;
+    private int size = 0;
+
+    /**
+     * This is the initializer for the IndexedOpenSet class
+     * @param arena is the arena that holds the values of the nodes on the open set
+     * @param capacity is the number of nodes the heap can hold before it has to grow
+     */
+    IndexedOpenSet(NodeArena arena, int capacity) {
+        this.arena = arena;
+        heap = new int[capacity];
+    }
+
+    /**
+     * This is a helper function that checks if the open set is empty
+     * @return boolean returns true if there are no nodes on the open set and false if there are
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This is a helper function that returns the number of nodes on the open set
+     * @return int returns the number of nodes on the open set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This is a helper function that checks if a node is on the open set
+     * @param node is the index of the node
+     * @return boolean returns true if the node is on the open set and false if it is not
+     */
+    public boolean contains(int node) {
+        return arena.heapIndex[node] >= 0;
+    }
+
+    /**
+     * This function adds a node to the open set
+     * @param node is the index of the node that is being added
+     */
+    public void add(int node) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = node;
+        arena.heapIndex[node] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * This function returns the node with the lowest f value without removing it from the open set
+     * @return int returns the index of the node with the lowest f value and -1 if the open set is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * This function removes the node with the lowest f value from the open set and returns it. The node is marked as
+     * closed in the arena
+     * @return int returns the index of the node with the lowest f value and -1 if the open set is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int top = heap[0];
+        arena.heapIndex[top] = NodeArena.CLOSED;
+        int last = heap[--size];
+        //moves the last node to the top and lets it sink down to where it belongs
+        if (size > 0) {
+            heap[0] = last;
+            arena.heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * This function must be called after the f value of a node on the open set has been lowered, so that it moves up
+     * to its correct position in the heap
+     * @param node is the index of the node whose f value was lowered
+     */
+    public void decreaseKey(int node) {
+        int index = arena.heapIndex[node];
+        if (index >= 0) {
+            siftUp(index);
+        }
+    }
+
+    /**
+     * This function puts every node back into its correct position in the heap. It must be called after the f values
+     * of the nodes on the open set have been changed in any way other than being lowered
+     */
+    public void rebuild() {
+        for (int index = size / 2 - 1; index >= 0; index--) {
+            siftDown(index);
+        }
+    }
+
+    /**
+     * This function removes every node from the open set but keeps the heap so it can be reused
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * This is a helper function that compares two nodes by their f value and then by their h value
+     * @param a is the index of the first node
+     * @param b is the index of the second node
+     * @return boolean returns true if node a should come before node b
+     */
+    private boolean isBefore(int a, int b) {
+        double fa = arena.f[a];
+        double fb = arena.f[b];
+        if (fa != fb) {
+            return fa < fb;
+        }
+        return arena.h[a] < arena.h[b];
+    }
+
+    /**
+     * This is a helper function that moves the node at the given position up the heap until its parent is not
+     * larger than it
+     * @param index is the position of the node in the heap
+     */
+    private void siftUp(int index) {
+        int node = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            int parentNode = heap[parent];
+            if (!isBefore(node, parentNode)) {
+                break;
+            }
+            heap[index] = parentNode;
+            arena.heapIndex[parentNode] = index;
+            index = parent;
+        }
+        heap[index] = node;
+        arena.heapIndex[node] = index;
+    }
+
+    /**
+     * This is a helper function that moves the node at the given position down the heap until neither of its
+     * children are smaller than it
+     * @param index is the position of the node in the heap
+     */
+    private void siftDown(int index) {
+        int node = heap[index];
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && isBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            int childNode = heap[child];
+            if (!isBefore(childNode, node)) {
+                break;
+            }
+            heap[index] = childNode;
+            arena.heapIndex[childNode] = index;
+            index = child;
+        }
+        heap[index] = node;
+        arena.heapIndex[node] = index;
+    }
+}
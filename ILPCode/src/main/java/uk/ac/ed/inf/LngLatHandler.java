@@ -10,7 +10,21 @@ import uk.ac.ed.inf.ilp.interfaces.LngLatHandling;
  * This is a class that will help with the drone movement calculations needed for the program
  */
 public class LngLatHandler implements LngLatHandling {
+    //These are all the possible angles the drone can move
+    static final double[] DIRECTION_ANGLES = {22.5,45,67.5,90,112.5,135,157.5,180,202.5,225,247.5,270,292.5,315,337.5,
+            360};
+    //The change in longitude and latitude of one move in each of the directions. These are calculated exactly as
+    //nextPosition calculates them, so a position from the tables is the same as one from nextPosition
+    private static final double[] MOVE_LNG = new double[DIRECTION_ANGLES.length];
+    private static final double[] MOVE_LAT = new double[DIRECTION_ANGLES.length];
 
+    static {
+        for (int direction = 0; direction < DIRECTION_ANGLES.length; direction++) {
+            double angle = DIRECTION_ANGLES[direction];
+            MOVE_LNG[direction] = SystemConstants.DRONE_MOVE_DISTANCE * Math.cos(angle * Math.PI / 180);
+            MOVE_LAT[direction] = SystemConstants.DRONE_MOVE_DISTANCE * Math.sin(angle * Math.PI / 180);
+        }
+    }
 
     /**
      * This is a helper function that calculates the distance between two points using the method provided in the
@@ -21,10 +35,19 @@ public class LngLatHandler implements LngLatHandling {
      */
     @Override
     public double distanceTo(LngLat startPosition, LngLat endPosition) {
-        double lng1 = startPosition.lng();
-        double lng2 = endPosition.lng();
-        double lat1 = startPosition.lat();
-        double lat2 = endPosition.lat();
+        return distanceTo(startPosition.lng(), startPosition.lat(), endPosition.lng(), endPosition.lat());
+    }
+
+    /**
+     * This is a helper function that calculates the distance between two points given as longitudes and latitudes, so
+     * no LngLat has to be made for them
+     * @param lng1 is the longitude of the first point
+     * @param lat1 is the latitude of the first point
+     * @param lng2 is the longitude of the second point
+     * @param lat2 is the latitude of the second point
+     * @return double returns the distance between the two points
+     */
+    public static double distanceTo(double lng1, double lat1, double lng2, double lat2) {
         return Math.sqrt((lng1 - lng2)*(lng1 - lng2) + (lat1 - lat2)*(lat1 - lat2));
     }
 
@@ -91,4 +114,38 @@ public class LngLatHandler implements LngLatHandling {
             return new LngLat(newLng, newLat);
         }
     }
+
+    /**
+     * This is a helper function that calculates the next position of the drone in every one of the 16 directions at
+     * once, using the precomputed moves instead of cos and sin. The positions are written into the given arrays in the
+     * order of DIRECTION_ANGLES, so nothing is allocated
+     * @param lng is the longitude of the drone
+     * @param lat is the latitude of the drone
+     * @param nextLng is the array the longitudes of the next positions are written into, with room for 16 values
+     * @param nextLat is the array the latitudes of the next positions are written into, with room for 16 values
+     */
+    public static void nextPositions(double lng, double lat, double[] nextLng, double[] nextLat) {
+        for (int direction = 0; direction < MOVE_LNG.length; direction++) {
+            nextLng[direction] = MOVE_LNG[direction] + lng;
+            nextLat[direction] = MOVE_LAT[direction] + lat;
+        }
+    }
+
+    /**
+     * This is a helper function that returns the change in longitude of one move in a direction
+     * @param direction is the index of the direction in DIRECTION_ANGLES
+     * @return double returns the change in longitude
+     */
+    public static double moveLng(int direction) {
+        return MOVE_LNG[direction];
+    }
+
+    /**
+     * This is a helper function that returns the change in latitude of one move in a direction
+     * @param direction is the index of the direction in DIRECTION_ANGLES
+     * @return double returns the change in latitude
+     */
+    public static double moveLat(int direction) {
+        return MOVE_LAT[direction];
+    }
 }
@@ -0,0 +1,121 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+/**
+ * This is a hash map from long keys to int values that stores both in primitive arrays using open addressing, so
+ * that nothing is boxed or allocated when a key is looked up or added. Long.MIN_VALUE cannot be used as a key
+ */
+class LongIntHashMap {
+    //The value stored in an empty slot
+    private static final long EMPTY = Long.MIN_VALUE;
+    //The value returned by get when a key is not in the map
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+
+    /**
+     * This is the initializer for the LongIntHashMap class
+     * @param capacity is the number of entries the map can hold before it has to grow
+     */
+    LongIntHashMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) * 2;
+        keys = new long[slots];
+        values = new int[slots];
+        mask = slots - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * This function returns the value stored for a key
+     * @param key is the key that is being looked up
+     * @return int returns the value of the key and MISSING if the key is not in the map
+     */
+    int get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * This function stores a value for a key, replacing the value that was there before
+     * @param key is the key of the entry
+     * @param value is the value of the entry
+     */
+    void put(long key, int value) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        //keeps the map at most half full so the probe sequences stay short
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * This is a helper function that returns the number of entries in the map
+     * @return int returns the number of entries in the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * This function removes every entry from the map but keeps the arrays so they can be reused
+     */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    /**
+     * This is a helper function that finds the first slot a key should be stored in
+     * @param key is the key
+     * @return int returns the slot
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * This is a helper function that moves every entry into new arrays with the given number of slots
+     * @param slots is the new number of slots, which must be a power of two
+     */
+    private void rehash(int slots) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[slots];
+        values = new int[slots];
+        mask = slots - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
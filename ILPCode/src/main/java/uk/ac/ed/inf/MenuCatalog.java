@@ -0,0 +1,125 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This is a class that indexes the menus of every restaurant once, so checking an order against them takes the same
+ * time however many restaurants and pizzas there are. Each restaurant is given an id, which is its position in the
+ * array it was built from. The catalog keeps which restaurant sells each pizza, the price of every pizza on each
+ * restaurant's menu and the days each restaurant is open as a bitmask.
+ * <p>
+ * If more than one restaurant sells a pizza with the same name, the pizza belongs to the last of them, the same as
+ * the HashMaps OrderValidator used to build for every order. It is not changed once it is built, so it can be shared
+ * by several threads
+ */
+public class MenuCatalog {
+    //Returned by restaurantOf when no restaurant sells the pizza
+    public static final int NO_RESTAURANT = -1;
+    //Returned by priceOf when the pizza is not on the restaurant's menu
+    public static final int NOT_ON_MENU = Integer.MIN_VALUE;
+
+    private final Restaurant[] restaurants;
+    //The id of the restaurant that sells each pizza, with the pizza name as the key
+    private final HashMap<String, Integer> restaurantIds = new HashMap<>();
+    //The price of each pizza on the menu of each restaurant, with the pizza name as the key
+    private final List<HashMap<String, Integer>> menuPrices;
+    //The days each restaurant is open, with bit 0 for Monday up to bit 6 for Sunday
+    private final int[] openingDays;
+
+    /**
+     * This is the initializer for the MenuCatalog class
+     * @param restaurants is the array of all restaurants
+     */
+    public MenuCatalog(Restaurant[] restaurants) {
+        this.restaurants = restaurants;
+        menuPrices = new ArrayList<>(restaurants.length);
+        openingDays = new int[restaurants.length];
+        for (int id = 0; id < restaurants.length; id++) {
+            Restaurant restaurant = restaurants[id];
+            HashMap<String, Integer> prices = new HashMap<>();
+            for (Pizza pizza : restaurant.menu()) {
+                restaurantIds.put(pizza.name(), id);
+                prices.put(pizza.name(), pizza.priceInPence());
+            }
+            menuPrices.add(prices);
+            if (restaurant.openingDays() != null) {
+                for (DayOfWeek day : restaurant.openingDays()) {
+                    openingDays[id] |= dayBit(day);
+                }
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that returns the bit of the opening days bitmask for a day
+     * @param day is the day
+     * @return int returns the bit
+     */
+    private static int dayBit(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+
+    /**
+     * This function returns the restaurants the catalog was built from
+     * @return Restaurant[] returns the array of all restaurants
+     */
+    public Restaurant[] restaurants() {
+        return restaurants;
+    }
+
+    /**
+     * This function returns the id of the restaurant that sells a pizza
+     * @param pizzaName is the name of the pizza
+     * @return int returns the id of the restaurant, or NO_RESTAURANT if no restaurant sells it
+     */
+    public int restaurantOf(String pizzaName) {
+        Integer id = restaurantIds.get(pizzaName);
+        return id == null ? NO_RESTAURANT : id;
+    }
+
+    /**
+     * This function returns a restaurant from its id
+     * @param id is the id of the restaurant
+     * @return Restaurant returns the restaurant
+     */
+    public Restaurant restaurant(int id) {
+        return restaurants[id];
+    }
+
+    /**
+     * This function returns the restaurant that sells a pizza
+     * @param pizza is the pizza
+     * @return Restaurant returns the restaurant, or null if no restaurant sells it
+     */
+    public Restaurant restaurantFor(Pizza pizza) {
+        int id = restaurantOf(pizza.name());
+        return id == NO_RESTAURANT ? null : restaurants[id];
+    }
+
+    /**
+     * This function returns the price of a pizza on a restaurant's menu
+     * @param id is the id of the restaurant
+     * @param pizzaName is the name of the pizza
+     * @return int returns the price in pence, or NOT_ON_MENU if the restaurant does not sell the pizza
+     */
+    public int priceOf(int id, String pizzaName) {
+        Integer price = menuPrices.get(id).get(pizzaName);
+        return price == null ? NOT_ON_MENU : price;
+    }
+
+    /**
+     * This function checks if a restaurant is open on a day
+     * @param id is the id of the restaurant
+     * @param day is the day
+     * @return boolean returns true if the restaurant is open on the day
+     */
+    public boolean openOn(int id, DayOfWeek day) {
+        return (openingDays[id] & dayBit(day)) != 0;
+    }
+}
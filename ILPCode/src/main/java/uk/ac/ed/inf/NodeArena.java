@@ -0,0 +1,97 @@
+package uk.ac.ed.inf;
+
+import java.util.Arrays;
+
+/**
+ * This is a class that stores every node of an A star search. Instead of one object per node, each value is kept in
+ * its own array and a node is just its index into these arrays. The arrays only grow, so an arena that is cleared and
+ * reused for the next search does not allocate anything once it is large enough
+ */
+class NodeArena {
+    //The value heapIndex holds for a node that has been expanded and is on the closed set
+    static final int CLOSED = -1;
+    //The value parent holds for the start node
+    static final int NO_PARENT = -1;
+    //The value direction holds for the start node
+    static final byte NO_DIRECTION = -1;
+
+    double[] lng, lat;
+    double[] f, g, h;
+    int[] parent;
+    //The index into FlightPath.angles of the move between the node and its parent
+    byte[] direction;
+    //The position of the node in the open set heap, or CLOSED once it has been expanded
+    int[] heapIndex;
+    private int size = 0;
+
+    /**
+     * This is the initializer for the NodeArena class
+     * @param capacity is the number of nodes the arena can hold before it has to grow
+     */
+    NodeArena(int capacity) {
+        lng = new double[capacity];
+        lat = new double[capacity];
+        f = new double[capacity];
+        g = new double[capacity];
+        h = new double[capacity];
+        parent = new int[capacity];
+        direction = new byte[capacity];
+        heapIndex = new int[capacity];
+    }
+
+    /**
+     * This function adds a new node to the arena
+     * @param nodeLng is the longitude of the node
+     * @param nodeLat is the latitude of the node
+     * @param nodeG is the distance travelled from the start to the node
+     * @param nodeH is the estimated distance from the node to the end
+     * @param nodeParent is the index of the node this one was reached from, or NO_PARENT
+     * @param nodeDirection is the index of the angle of the move between the node and its parent, or NO_DIRECTION
+     * @return int returns the index of the new node
+     */
+    int add(double nodeLng, double nodeLat, double nodeG, double nodeH, int nodeParent, int nodeDirection) {
+        if (size == lng.length) {
+            grow();
+        }
+        int node = size++;
+        lng[node] = nodeLng;
+        lat[node] = nodeLat;
+        g[node] = nodeG;
+        h[node] = nodeH;
+        f[node] = nodeG + nodeH;
+        parent[node] = nodeParent;
+        direction[node] = (byte) nodeDirection;
+        heapIndex[node] = CLOSED;
+        return node;
+    }
+
+    /**
+     * This is a helper function that returns the number of nodes in the arena
+     * @return int returns the number of nodes in the arena
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * This function removes every node from the arena but keeps the arrays so they can be reused
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * This is a helper function that doubles the length of every array
+     */
+    private void grow() {
+        int capacity = lng.length * 2;
+        lng = Arrays.copyOf(lng, capacity);
+        lat = Arrays.copyOf(lat, capacity);
+        f = Arrays.copyOf(f, capacity);
+        g = Arrays.copyOf(g, capacity);
+        h = Arrays.copyOf(h, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+    }
+}
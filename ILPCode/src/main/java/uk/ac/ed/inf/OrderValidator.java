@@ -7,126 +7,56 @@ import uk.ac.ed.inf.ilp.data.Pizza;
 import uk.ac.ed.inf.ilp.data.Restaurant;
 import uk.ac.ed.inf.ilp.interfaces.OrderValidation;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
 /**
  * This is a class that will help validate the orders. It has all the attributes needed in the Json file,
  * a constructor function and .get functions for all of these attributes
  */
 public class OrderValidator implements OrderValidation {
+    //The most orders one task validates before validateOrders splits them between two tasks
+    static final int BATCH_THRESHOLD = 1024;
+    //The catalog of the menus of the restaurants the last order was validated against
+    private volatile MenuCatalog catalog;
+    //This is the pool that validateOrders uses to validate several orders at the same time
+    private final ForkJoinPool pool;
 
     /**
-     * This is a helper function that checks if the card number is the correct length, and if all characters are digits
-     * @param order is the order that is being checked
-     * @return boolean returns true if the card number is valid and false if it is not
+     * This is the initializer for the OrderValidator class. Orders validated together will use the common ForkJoinPool
      */
-    private boolean cardNumberValid(Order order) {
-        boolean isValid = false;
-        String cardNumber = order.getCreditCardInformation().getCreditCardNumber();
-        if(cardNumber != null){
-            if(cardNumber.length() == 16){
-                boolean allDigits = true;
-                for (int i = 0; i < cardNumber.length(); i++){
-                    if (!(cardNumber.charAt(i) >= '0' && cardNumber.charAt(i) <= '9')){
-                        allDigits = false;
-                    }
-                }
-                if (allDigits){
-                    isValid = true;
-                }
-            }
-        }
-        return isValid;
+    public OrderValidator() {
+        this(ForkJoinPool.commonPool());
     }
 
     /**
-     * This is a helper function that checks if the expiry date is not null, if the year and month are correct year and
-     * months and if the card has expired yet
-     * @param order is the order that is being checked
-     * @return boolean returns true if the expiry date is valid and false if it is not
+     * This is the initializer for the OrderValidator class
+     * @param pool is the ForkJoinPool that validateOrders will validate the orders on
      */
-    private boolean expiryDateValid(Order order) {
-        boolean isValid = false;
-        String expiryDate = order.getCreditCardInformation().getCreditCardExpiry();
-        if (order.getCreditCardInformation().getCreditCardExpiry() != null){
-            String[] splitExpiryDate = expiryDate.split("/");
-            int expiryMonth = Integer.parseInt(splitExpiryDate[0]);
-            int expiryYear = Integer.parseInt(splitExpiryDate[1]);
-            int currentMonth = order.getOrderDate().getMonthValue();
-            int currentYear = order.getOrderDate().getYear() % 100;
-            if (expiryMonth <= 12 && expiryMonth >= 0 && expiryYear >= currentYear){
-                if(expiryYear == currentYear){
-                    if(expiryMonth >= currentMonth){
-                        isValid = true;
-                    }
-                    else{
-                        isValid = false;
-                    }
-                }
-                else{
-                    isValid = true;
-                }
-            }
-        }
-        return isValid;
+    public OrderValidator(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
-    //Checks if the CVV is the correct length, and if all characters are digits
-
-    /**
-     * This is a helper function that checks if the CVV is the correct length, and if all characters are digits
-     * @param order is the order that is being checked
-     * @return boolean returns true if the CVV is valid and false if it is not
-     */
-    private boolean cvvValid(Order order) {
-        boolean isValid = false;
-        String cvv = order.getCreditCardInformation().getCvv();
-        if(cvv != null){
-            if(cvv.length() == 3){
-                boolean allDigits = true;
-                for (int i = 0; i < cvv.length(); i++){
-                    if (!(cvv.charAt(i) >= '0' && cvv.charAt(i) <= '9')){
-                        allDigits = false;
-                    }
-                }
-                if (allDigits){
-                    isValid = true;
-                }
-            }
-        }
-        return isValid;
-    }
-
-
     /**
      * This is a helper function that checks if the total cost of the pizzas is correct and if the prices of the pizzas
      * are correct
      * @param order is the order that is being checked
-     * @param restaurants is the array of all restaurants
+     * @param catalog is the catalog of the menus of all restaurants
      * @return boolean returns true if the total cost is correct and false if it is not
      */
-    private boolean totalCostValid(Order order, Restaurant[] restaurants) {
+    private boolean totalCostValid(Order order, MenuCatalog catalog) {
         int calculatedCost = 0;
-        HashMap<String, Restaurant> availablePizzas = new HashMap<>();
-        for (Restaurant restaurant : restaurants) {
-            for (Pizza pizza : restaurant.menu()) {
-                availablePizzas.put(pizza.name(), restaurant);
-            }
-        }
-        if (availablePizzas.get(order.getPizzasInOrder()[0].name()) == null) {return true;}
-        Restaurant correctRestaurant = availablePizzas.get(order.getPizzasInOrder()[0].name());
-        HashMap<String, Integer> pizzaPricing = new HashMap<>();
-        for (Pizza pizza : correctRestaurant.menu()) {
-            pizzaPricing.put(pizza.name(), pizza.priceInPence());
-        }
-        for (Pizza pizza : order.getPizzasInOrder())
-            if (pizzaPricing.get(pizza.name()) == null) {return true;}
-            else if (pizza.priceInPence() != pizzaPricing.get(pizza.name()))
+        int correctRestaurant = catalog.restaurantOf(order.getPizzasInOrder()[0].name());
+        if (correctRestaurant == MenuCatalog.NO_RESTAURANT) {return true;}
+        for (Pizza pizza : order.getPizzasInOrder()) {
+            int price = catalog.priceOf(correctRestaurant, pizza.name());
+            if (price == MenuCatalog.NOT_ON_MENU) {return true;}
+            else if (pizza.priceInPence() != price)
                 return false;
+        }
 
         for (int i = 0; i < order.getPizzasInOrder().length; i++){
             calculatedCost += order.getPizzasInOrder()[i].priceInPence();
@@ -134,87 +64,68 @@ public class OrderValidator implements OrderValidation {
         return (calculatedCost + 100 == order.getPriceTotalInPence());
     }
 
-    //checks if the pizzas are on the menu by checking the pizzas against every restaurants menus
-
     /**
-     * This is a helper function that checks if the pizzas are on the menu by checking the pizzas against every
-     * restaurants menus
+     * This is a helper function that checks if the pizzas are on the menu of any restaurant
      * @param order is the order that is being checked
-     * @param restaurants is the array of all restaurants
+     * @param catalog is the catalog of the menus of all restaurants
      * @return boolean returns true if the pizzas are on the menu and false if they are not
      */
-    private boolean pizzaExists(Order order, Restaurant[] restaurants) {
-        boolean isValid = true;
-        Pizza[] pizzas = order.getPizzasInOrder();
-        ArrayList<String> availablePizzas = new ArrayList<String>();
-        for (Restaurant restaurant : restaurants) {
-            for (Pizza pizza : restaurant.menu()) {
-                availablePizzas.add(pizza.name());
-            }
-        }
-        for (Pizza pizza : pizzas) {
-            if (!(availablePizzas.contains(pizza.name()))) {
-                isValid = false;
-                break;
+    private boolean pizzaExists(Order order, MenuCatalog catalog) {
+        for (Pizza pizza : order.getPizzasInOrder()) {
+            if (catalog.restaurantOf(pizza.name()) == MenuCatalog.NO_RESTAURANT) {
+                return false;
             }
         }
-        return isValid;
+        return true;
     }
 
     /**
      * This is a helper function that checks if the pizzas ordered are all from the same restaurant
      * @param order is the order that is being checked
-     * @param restaurants is the array of all restaurants
+     * @param catalog is the catalog of the menus of all restaurants
      * @return boolean returns true if the pizzas are from the same restaurant and false if they are not
      */
-    private boolean pizzaFromSameRestaurants(Order order, Restaurant[] restaurants) {
-        boolean isValid = false;
-        ArrayList<Restaurant> restaurantList = new ArrayList<Restaurant>();
-        Pizza[] pizzas = order.getPizzasInOrder();
-        HashMap<String, Restaurant> availablePizzas = new HashMap<>();
-        for (Restaurant restaurant : restaurants) {
-            for (Pizza pizza : restaurant.menu()) {
-                availablePizzas.put(pizza.name(), restaurant);
+    private boolean pizzaFromSameRestaurants(Order order, MenuCatalog catalog) {
+        int firstRestaurant = MenuCatalog.NO_RESTAURANT;
+        for (Pizza pizza : order.getPizzasInOrder()) {
+            int restaurant = catalog.restaurantOf(pizza.name());
+            if (restaurant == MenuCatalog.NO_RESTAURANT) {
+                continue;
             }
-        }
-        for (Pizza pizza : pizzas) {
-            if (availablePizzas.containsKey(pizza.name())) {
-                if (!restaurantList.contains(availablePizzas.get(pizza.name()))) {
-                    restaurantList.add(availablePizzas.get(pizza.name()));
-                }
+            if (firstRestaurant == MenuCatalog.NO_RESTAURANT) {
+                firstRestaurant = restaurant;
+            }
+            else if (restaurant != firstRestaurant) {
+                return false;
             }
         }
-        if (restaurantList.size()==1) {
-            isValid = true;
-        }
-        return isValid;
+        return firstRestaurant != MenuCatalog.NO_RESTAURANT;
     }
 
     /**
      * This is a helper function that checks if the restaurant is open on the day that the order is made
      * @param order is the order that is being checked
-     * @param restaurants is the array of all restaurants
+     * @param catalog is the catalog of the menus of all restaurants
      * @return boolean returns true if the restaurant is open and false if it is not
      */
-    private boolean restaurantOpen(Order order, Restaurant[] restaurants) {
-        boolean isValid = false;
-        DayOfWeek dayOfWeek = order.getOrderDate().getDayOfWeek();
-        Pizza firstPizza = order.getPizzasInOrder()[0];
-        HashMap<String, Restaurant> availablePizzas = new HashMap<>();
-        for (Restaurant restaurant : restaurants) {
-            for (Pizza pizza : restaurant.menu()) {
-                availablePizzas.put(pizza.name(), restaurant);
-            }
-        }
-        Restaurant restaurant = availablePizzas.get(firstPizza.name());
-        DayOfWeek[] openDays = restaurant.openingDays();
-        for (DayOfWeek day : openDays) {
-            if (day == dayOfWeek) {
-                isValid = true;
-                break;
-            }
+    private boolean restaurantOpen(Order order, MenuCatalog catalog) {
+        int restaurant = catalog.restaurantOf(order.getPizzasInOrder()[0].name());
+        return catalog.openOn(restaurant, order.getOrderDate().getDayOfWeek());
+    }
+
+    /**
+     * This is a helper function that returns the catalog of the menus of the restaurants. The catalog is only built
+     * again when a different array of restaurants is given
+     * @param restaurants is the array of all restaurants
+     * @return MenuCatalog returns the catalog
+     */
+    private MenuCatalog catalogFor(Restaurant[] restaurants) {
+        MenuCatalog last = catalog;
+        if (last == null || last.restaurants() != restaurants) {
+            last = new MenuCatalog(restaurants);
+            catalog = last;
         }
-        return isValid;
+        return last;
     }
 
     /**
@@ -226,46 +137,178 @@ public class OrderValidator implements OrderValidation {
      */
     @Override
     public Order validateOrder(Order orderToValidate, Restaurant[] definedRestaurants) {
+        return validateOrder(orderToValidate, catalogFor(definedRestaurants));
+    }
+
+    /**
+     * This function checks if the order is valid against a catalog of the menus that has already been built and if it
+     * is not, it sets the order validation code and order status
+     * @param orderToValidate is the order that is being checked
+     * @param catalog is the catalog of the menus of all restaurants
+     * @return Order returns the order that has been checked
+     */
+    public Order validateOrder(Order orderToValidate, MenuCatalog catalog) {
+        return validateOrder(orderToValidate, catalog, null);
+    }
+
+    /**
+     * This function checks if the order is valid against a catalog of the menus that has already been built and if it
+     * is not, it sets the order validation code and order status. The code the order is given and the time each rule
+     * took are recorded in the metrics
+     * @param orderToValidate is the order that is being checked
+     * @param catalog is the catalog of the menus of all restaurants
+     * @param metrics is where the code and times are recorded, or null to not record them
+     * @return Order returns the order that has been checked
+     */
+    public Order validateOrder(Order orderToValidate, MenuCatalog catalog, ValidationMetrics metrics) {
         orderToValidate.setOrderValidationCode(OrderValidationCode.UNDEFINED);
         orderToValidate.setOrderStatus(OrderStatus.INVALID);
 
-        //If the card number is invalid
-        if (!cardNumberValid(orderToValidate)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
+        OrderValidationCode code = firstError(orderToValidate, catalog, metrics);
+        orderToValidate.setOrderValidationCode(code);
+        //If there is no error then the order is valid
+        if (code == OrderValidationCode.NO_ERROR) {
+            orderToValidate.setOrderStatus(OrderStatus.VALID_BUT_NOT_DELIVERED);
         }
-        //If the expiry date is invalid
-        else if (!expiryDateValid(orderToValidate)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
+        if (metrics != null) {
+            metrics.recordCode(code);
         }
-        //If the CVV is invalid
-        else if (!cvvValid(orderToValidate)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
+        return orderToValidate;
+    }
+
+    /**
+     * This is a helper function that checks the rules in order and returns the code of the first one the order breaks
+     * @param order is the order that is being checked
+     * @param catalog is the catalog of the menus of all restaurants
+     * @param metrics is where the time each rule takes is recorded, or null to not time them
+     * @return OrderValidationCode returns the code of the first rule that is broken, or NO_ERROR if none are
+     */
+    private OrderValidationCode firstError(Order order, MenuCatalog catalog, ValidationMetrics metrics) {
+        long time = metrics == null ? 0 : System.nanoTime();
+
+        //If the card number, expiry date or CVV is invalid
+        OrderValidationCode cardCode = CardChecker.check(order.getCreditCardInformation(), order.getOrderDate());
+        time = lap(metrics, ValidationMetrics.Rule.CARD, time);
+        if (cardCode != OrderValidationCode.NO_ERROR) {
+            return cardCode;
         }
         //If the total price is valid
-        else if (!totalCostValid(orderToValidate, definedRestaurants)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.TOTAL_INCORRECT);
+        boolean valid = totalCostValid(order, catalog);
+        time = lap(metrics, ValidationMetrics.Rule.TOTAL, time);
+        if (!valid) {
+            return OrderValidationCode.TOTAL_INCORRECT;
         }
         //If the pizzas are not on the restaurants menus
-        else if (!pizzaExists(orderToValidate, definedRestaurants)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
+        valid = pizzaExists(order, catalog);
+        time = lap(metrics, ValidationMetrics.Rule.PIZZA_DEFINED, time);
+        if (!valid) {
+            return OrderValidationCode.PIZZA_NOT_DEFINED;
         }
         //If there are more than 4 pizzas
-        else if (orderToValidate.getPizzasInOrder().length > 4) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
+        valid = order.getPizzasInOrder().length <= 4;
+        time = lap(metrics, ValidationMetrics.Rule.PIZZA_COUNT, time);
+        if (!valid) {
+            return OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED;
         }
         //If the pizzas are from multiple restaurants
-        else if (!pizzaFromSameRestaurants(orderToValidate, definedRestaurants)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
+        valid = pizzaFromSameRestaurants(order, catalog);
+        time = lap(metrics, ValidationMetrics.Rule.SINGLE_RESTAURANT, time);
+        if (!valid) {
+            return OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS;
         }
         //If the restaurant is closed
-        else if (!restaurantOpen(orderToValidate, definedRestaurants)) {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.RESTAURANT_CLOSED);
+        valid = restaurantOpen(order, catalog);
+        lap(metrics, ValidationMetrics.Rule.RESTAURANT_OPEN, time);
+        if (!valid) {
+            return OrderValidationCode.RESTAURANT_CLOSED;
         }
-        //If there is no error then the order is valid
-        else {
-            orderToValidate.setOrderValidationCode(OrderValidationCode.NO_ERROR);
-            orderToValidate.setOrderStatus(OrderStatus.VALID_BUT_NOT_DELIVERED);
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    /**
+     * This is a helper function that records the time a rule took, if the rules are being timed
+     * @param metrics is where the time is recorded, or null if the rules are not being timed
+     * @param rule is the rule that has just been checked
+     * @param start is the time the rule started
+     * @return long returns the time now, which the next rule starts at
+     */
+    private static long lap(ValidationMetrics metrics, ValidationMetrics.Rule rule, long start) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.recordTime(rule, now - start);
+        return now;
+    }
+
+    /**
+     * This function validates every order of a day at the same time, split between the threads of the pool. Each
+     * order is only validated by one thread, so its validation code and status are the same as validateOrder would
+     * give it
+     * @param orders is the array of orders that are being checked. The orders are changed in place
+     * @param restaurants is the array of all restaurants
+     * @return Order[] returns the same array of orders, in the same order
+     */
+    public Order[] validateOrders(Order[] orders, Restaurant[] restaurants) {
+        return validateOrders(orders, restaurants, null);
+    }
+
+    /**
+     * This function validates every order of a day at the same time in the same way, recording the code each order
+     * is given and the time each rule took in the metrics
+     * @param orders is the array of orders that are being checked. The orders are changed in place
+     * @param restaurants is the array of all restaurants
+     * @param metrics is where the codes and times are recorded, or null to not record them
+     * @return Order[] returns the same array of orders, in the same order
+     */
+    public Order[] validateOrders(Order[] orders, Restaurant[] restaurants, ValidationMetrics metrics) {
+        MenuCatalog menus = catalogFor(restaurants);
+        pool.invoke(new ValidateTask(orders, 0, orders.length, menus, metrics));
+        return orders;
+    }
+
+    /**
+     * This function validates every order of a stream at the same time, split between the threads of the pool
+     * @param orders is the stream of orders that are being checked
+     * @param restaurants is the array of all restaurants
+     * @return Order[] returns the orders after they have been checked, in the order the stream gave them
+     */
+    public Order[] validateOrders(Stream<Order> orders, Restaurant[] restaurants) {
+        return validateOrders(orders.toArray(Order[]::new), restaurants);
+    }
+
+    /**
+     * This is a class that validates a range of an array of orders, splitting it in half until each part is no more
+     * than BATCH_THRESHOLD orders
+     */
+    private class ValidateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Order[] orders;
+        private final int from;
+        private final int to;
+        private final MenuCatalog menus;
+        private final ValidationMetrics metrics;
+
+        private ValidateTask(Order[] orders, int from, int to, MenuCatalog menus, ValidationMetrics metrics) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+            this.menus = menus;
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    validateOrder(orders[i], menus, metrics);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidateTask(orders, from, middle, menus, metrics),
+                    new ValidateTask(orders, middle, to, menus, metrics));
         }
-        return orderToValidate;
     }
 }
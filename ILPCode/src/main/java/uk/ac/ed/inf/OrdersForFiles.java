@@ -6,7 +6,8 @@ import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
 
 /**
  * This is a class that will help construct the deliveries file. It has all the attributes needed in the Json file,
- * a constructor function and .get functions for all of these attributes
+ * a constructor function and .get functions for all of these attributes. Only these are kept for each order, so the
+ * rest of an order can be thrown away as soon as it has been validated
  */
 public class OrdersForFiles {
     String orderNo;
@@ -21,7 +22,8 @@ public class OrdersForFiles {
      * @param orderValidation is the order validation state
      * @param costInPennies is the cost of the order
      */
-    public OrdersForFiles(String orderNum, OrderStatus orderStat, OrderValidationCode orderValidation, int costInPennies) {
+    public OrdersForFiles(String orderNum, OrderStatus orderStat, OrderValidationCode orderValidation,
+                          int costInPennies) {
         orderNo = orderNum;
         orderStatus = orderStat;
         orderValidationCode = orderValidation;
@@ -46,6 +48,14 @@ public class OrdersForFiles {
         return orderStatus;
     }
 
+    /**
+     * This is a helper function that changes the order status
+     * @param orderStat is the new order status
+     */
+    public void setOrderStatus(OrderStatus orderStat) {
+        orderStatus = orderStat;
+    }
+
     /**
      * This is a helper function that returns the order number
      * @return String returns the order number
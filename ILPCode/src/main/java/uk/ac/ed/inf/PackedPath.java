@@ -0,0 +1,308 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This is a class that stores a flight path of the drone. The longitudes and latitudes of the points are kept in two
+ * arrays, and every move between two points is kept as the index of its direction in LngLatHandler.DIRECTION_ANGLES.
+ * A PackedPath can not be changed once it is made, so one path can be shared by every order to the same restaurant
+ * and by several threads. The path back from the restaurant is a reversed view of the same arrays, so reversing a
+ * path copies nothing
+ */
+public final class PackedPath implements Iterable<LngLat> {
+    private final double[] lng, lat;
+    //The direction of the move from each point to the next, in the order the arrays are stored in
+    private final byte[] directions;
+    //Whether this is a view of the arrays from the last point to the first
+    private final boolean reversed;
+
+    /**
+     * This is the initializer for the PackedPath class. The arrays are used as they are, so they must not be changed
+     * afterwards
+     * @param lng is the longitude of every point
+     * @param lat is the latitude of every point
+     * @param directions is the direction of the move from each point to the next, one fewer than the points
+     * @param reversed is true if the path goes from the last point of the arrays to the first
+     */
+    PackedPath(double[] lng, double[] lat, byte[] directions, boolean reversed) {
+        if (lng.length == 0 || lng.length != lat.length || directions.length != lng.length - 1) {
+            throw new IllegalArgumentException("a path needs at least one point and one direction for every move");
+        }
+        this.lng = lng;
+        this.lat = lat;
+        this.directions = directions;
+        this.reversed = reversed;
+    }
+
+    /**
+     * This function makes a path from copies of the given arrays
+     * @param lng is the longitude of every point
+     * @param lat is the latitude of every point
+     * @param directions is the direction of the move from each point to the next, one fewer than the points
+     * @return PackedPath returns the new path
+     */
+    public static PackedPath of(double[] lng, double[] lat, byte[] directions) {
+        return new PackedPath(lng.clone(), lat.clone(), directions.clone(), false);
+    }
+
+    /**
+     * This is a helper function that returns the number of points on the path, which is one more than the number of
+     * moves
+     * @return int returns the number of points
+     */
+    public int size() {
+        return lng.length;
+    }
+
+    /**
+     * This is a helper function that returns the number of moves on the path
+     * @return int returns the number of moves
+     */
+    public int moves() {
+        return directions.length;
+    }
+
+    /**
+     * This is a helper function that returns the longitude of a point
+     * @param index is the position of the point on the path, from 0 to size() - 1
+     * @return double returns the longitude
+     */
+    public double lng(int index) {
+        return lng[reversed ? lng.length - 1 - index : index];
+    }
+
+    /**
+     * This is a helper function that returns the latitude of a point
+     * @param index is the position of the point on the path, from 0 to size() - 1
+     * @return double returns the latitude
+     */
+    public double lat(int index) {
+        return lat[reversed ? lat.length - 1 - index : index];
+    }
+
+    /**
+     * This is a helper function that returns a point of the path
+     * @param index is the position of the point on the path, from 0 to size() - 1
+     * @return LngLat returns the point
+     */
+    public LngLat get(int index) {
+        return new LngLat(lng(index), lat(index));
+    }
+
+    /**
+     * This is a helper function that returns the direction of a move. Flying a move backwards means flying in the
+     * opposite direction, which is 8 directions further round
+     * @param move is the position of the move on the path, from 0 to moves() - 1
+     * @return int returns the index of the direction in LngLatHandler.DIRECTION_ANGLES
+     */
+    public int direction(int move) {
+        if (reversed) {
+            return (directions[directions.length - 1 - move] + 8) % 16;
+        }
+        return directions[move];
+    }
+
+    /**
+     * This is a helper function that returns the angle of a move in degrees, as it is written to the flightpath file.
+     * A move due east is written as 0 rather than 360, the same as findAngle in FlightPath calculates it
+     * @param move is the position of the move on the path, from 0 to moves() - 1
+     * @return double returns the angle of the move
+     */
+    public double angle(int move) {
+        return LngLatHandler.DIRECTION_ANGLES[direction(move)] % 360;
+    }
+
+    /**
+     * This function returns the same path flown the other way round. Nothing is copied
+     * @return PackedPath returns the reversed path
+     */
+    public PackedPath reversed() {
+        return new PackedPath(lng, lat, directions, !reversed);
+    }
+
+    /**
+     * This function returns an iterator over the points of the path from the first to the last
+     * @return Iterator<LngLat> returns the iterator
+     */
+    @Override
+    public Iterator<LngLat> iterator() {
+        return new PointIterator(this);
+    }
+
+    /**
+     * This function returns an iterator over the points of the path from the last to the first
+     * @return Iterator<LngLat> returns the iterator
+     */
+    public Iterator<LngLat> reverseIterator() {
+        return new PointIterator(reversed());
+    }
+
+    /**
+     * This overrides the usual equals function. Two paths are equal if they have the same points and moves in the
+     * same order, whichever way round their arrays are stored
+     * @param obj is the object that is being compared to
+     * @return boolean returns true if the paths are equal and false if they are not
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PackedPath other) || other.size() != size()) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (Double.compare(lng(i), other.lng(i)) != 0 || Double.compare(lat(i), other.lat(i)) != 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i < moves(); i++) {
+            if (direction(i) != other.direction(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This overrides the usual hashCode function
+     * @return int returns the hashcode of the path
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size(); i++) {
+            hash = 31 * hash + Double.hashCode(lng(i));
+            hash = 31 * hash + Double.hashCode(lat(i));
+        }
+        return hash;
+    }
+
+    /**
+     * This overrides the usual toString function
+     * @return String returns the number of moves and the first and last point of the path
+     */
+    @Override
+    public String toString() {
+        return "PackedPath[moves=" + moves() + ", from=" + get(0) + ", to=" + get(size() - 1) + "]";
+    }
+
+    /**
+     * This is a class that iterates over the points of a path
+     */
+    private static class PointIterator implements Iterator<LngLat> {
+        private final PackedPath path;
+        private int index = 0;
+
+        PointIterator(PackedPath path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < path.size();
+        }
+
+        @Override
+        public LngLat next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return path.get(index++);
+        }
+    }
+
+    /**
+     * This is a class that builds a PackedPath one move at a time
+     */
+    public static final class Builder {
+        private double[] lng, lat;
+        private byte[] directions;
+        private int size;
+
+        /**
+         * This is the initializer for the Builder class
+         * @param startLng is the longitude of the first point of the path
+         * @param startLat is the latitude of the first point of the path
+         */
+        public Builder(double startLng, double startLat) {
+            lng = new double[16];
+            lat = new double[16];
+            directions = new byte[16];
+            lng[0] = startLng;
+            lat[0] = startLat;
+            size = 1;
+        }
+
+        /**
+         * This is the initializer for the Builder class that starts with the points and moves of a path
+         * @param path is the path the new path starts with
+         */
+        public Builder(PackedPath path) {
+            this(path.lng(0), path.lat(0));
+            append(path);
+        }
+
+        /**
+         * This function adds a move to the end of the path
+         * @param nextLng is the longitude of the point the move finishes at
+         * @param nextLat is the latitude of the point the move finishes at
+         * @param direction is the index of the direction of the move in LngLatHandler.DIRECTION_ANGLES
+         * @return Builder returns this builder
+         */
+        public Builder move(double nextLng, double nextLat, int direction) {
+            if (size == lng.length) {
+                lng = Arrays.copyOf(lng, size * 2);
+                lat = Arrays.copyOf(lat, size * 2);
+                directions = Arrays.copyOf(directions, size * 2);
+            }
+            directions[size - 1] = (byte) direction;
+            lng[size] = nextLng;
+            lat[size] = nextLat;
+            size++;
+            return this;
+        }
+
+        /**
+         * This function adds every move of a path to the end of the path. The path that is added should start where
+         * this one finishes, as its first point is left out
+         * @param path is the path whose moves are added
+         * @return Builder returns this builder
+         */
+        public Builder append(PackedPath path) {
+            for (int i = 0; i < path.moves(); i++) {
+                move(path.lng(i + 1), path.lat(i + 1), path.direction(i));
+            }
+            return this;
+        }
+
+        /**
+         * This is a helper function that returns the longitude of the last point of the path
+         * @return double returns the longitude
+         */
+        public double lastLng() {
+            return lng[size - 1];
+        }
+
+        /**
+         * This is a helper function that returns the latitude of the last point of the path
+         * @return double returns the latitude
+         */
+        public double lastLat() {
+            return lat[size - 1];
+        }
+
+        /**
+         * This function makes the path
+         * @return PackedPath returns the path
+         */
+        public PackedPath build() {
+            return new PackedPath(Arrays.copyOf(lng, size), Arrays.copyOf(lat, size),
+                    Arrays.copyOf(directions, size - 1), false);
+        }
+    }
+}
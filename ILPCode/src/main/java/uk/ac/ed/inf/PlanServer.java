@@ -0,0 +1,265 @@
+package uk.ac.ed.inf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This is a class that runs the program as a long running HTTP service, so the restaurants, nofly zones, central
+ * area, menu catalog and route cache stay in memory between dates instead of being collected and built again by a new
+ * JVM each time. The reference data is collected again once it is older than the refresh interval, and the route
+ * cache is only replaced if the nofly zones or central area have changed.
+ * <p>
+ * It answers three endpoints:
+ * POST /plan/yyyy-mm-dd collects, validates and plans the orders of the date and writes its files, the same as running
+ * the program for that date.
+ * POST /refresh collects the reference data again straight away.
+ * GET /isAlive answers true
+ */
+public class PlanServer {
+    //The prefix of the path of the plan endpoint, which is followed by the date
+    static final String PLAN_PATH = "/plan/";
+
+    private final RestClient restClient;
+    private final Duration refreshInterval;
+    private final Path routeStoreFile;
+    private HttpServer server;
+    private ExecutorService executor;
+    //Everything that is kept between requests, replaced as a whole when it is refreshed
+    private volatile Resident resident;
+
+    /**
+     * This is a record of everything that is kept in memory between requests
+     */
+    private record Resident(RestClient.ReferenceData reference, MenuCatalog catalog, RouteCache routeCache,
+                            long storeHash, long loadedAt) {
+    }
+
+    /**
+     * This is the initializer for the PlanServer class
+     * @param restClient is the client the data is collected with
+     * @param refreshInterval is how long the reference data is kept before it is collected again
+     * @param routeStoreFile is the file the paths to the restaurants are kept in between runs of the program
+     */
+    public PlanServer(RestClient restClient, Duration refreshInterval, Path routeStoreFile) {
+        this.restClient = restClient;
+        this.refreshInterval = refreshInterval;
+        this.routeStoreFile = routeStoreFile;
+    }
+
+    /**
+     * This function starts answering requests
+     * @param address is the address the server listens on. A port of 0 picks any free port
+     * @param threads is the most requests that are answered at the same time
+     * @throws IOException if the server cannot listen on the address
+     */
+    public synchronized void start(InetSocketAddress address, int threads) throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        server.setExecutor(executor);
+        server.createContext(PLAN_PATH, this::handlePlan);
+        server.createContext("/refresh", this::handleRefresh);
+        server.createContext("/isAlive", this::handleIsAlive);
+        server.start();
+    }
+
+    /**
+     * This function returns the address the server is listening on
+     * @return InetSocketAddress returns the address
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * This function stops answering requests and saves the route cache
+     * @throws IOException if the route cache cannot be saved
+     */
+    public synchronized void stop() throws IOException {
+        server.stop(0);
+        executor.shutdownNow();
+        Resident current = resident;
+        if (current != null) {
+            current.routeCache().save();
+        }
+    }
+
+    /**
+     * This function plans one date with the data that is kept in memory, collecting it first if it is missing or
+     * older than the refresh interval
+     * @param date is the date, as yyyy-mm-dd
+     * @return List<OrdersForFiles> returns the deliveries file entry of every order of the date after it has been
+     * validated and planned
+     * @throws IOException if the data or orders cannot be collected or the route cache cannot be saved
+     */
+    public List<OrdersForFiles> plan(String date) throws IOException {
+        Resident current = resident(false);
+        List<OrdersForFiles> orders = App.processDate(date, restClient.streamOrders(date), current.catalog(),
+                current.routeCache());
+        current.routeCache().save();
+        return orders;
+    }
+
+    /**
+     * This is a helper function that returns the data kept in memory, collecting it again if it is missing, too old
+     * or a refresh is asked for. Only one thread collects it at a time
+     * @param refresh is true if the data should be collected again even if it is not too old
+     * @return Resident returns the data
+     * @throws IOException if the data cannot be collected
+     */
+    private Resident resident(boolean refresh) throws IOException {
+        Resident current = resident;
+        if (!refresh && fresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = resident;
+            //another thread may have collected it while this one was waiting
+            if (!refresh && fresh(current)) {
+                return current;
+            }
+            RestClient.ReferenceData reference = restClient.fetchReference();
+            long storeHash = RouteStore.storeHash(reference.noFlyZones(), reference.centralArea(),
+                    App.flightPath.searchHash());
+            RouteCache routeCache;
+            if (current != null && current.storeHash() == storeHash) {
+                //the paths are still right as long as the nofly zones, central area and search are the same
+                routeCache = current.routeCache();
+            }
+            else {
+                if (current != null) {
+                    current.routeCache().save();
+                }
+                routeCache = new RouteCache(App.APPLETON_TOWER, reference.noFlyZones(), reference.centralArea(),
+                        App.flightPath, routeStoreFile);
+            }
+            resident = new Resident(reference, new MenuCatalog(reference.restaurants()), routeCache, storeHash,
+                    System.nanoTime());
+            return resident;
+        }
+    }
+
+    /**
+     * This is a helper function that checks if the data kept in memory is younger than the refresh interval
+     * @param current is the data kept in memory, or null if none has been collected
+     * @return boolean returns true if it can be used without being collected again
+     */
+    private boolean fresh(Resident current) {
+        return current != null && System.nanoTime() - current.loadedAt() < refreshInterval.toNanos();
+    }
+
+    /**
+     * This is a helper function that answers a request to plan a date
+     * @param exchange is the request
+     * @throws IOException if the answer cannot be sent
+     */
+    private void handlePlan(HttpExchange exchange) throws IOException {
+        if (!allowed(exchange, "POST")) {
+            return;
+        }
+        String date = exchange.getRequestURI().getPath().substring(PLAN_PATH.length());
+        try {
+            date = LocalDate.parse(date).toString();
+        } catch (DateTimeParseException e) {
+            respond(exchange, 400, Map.of("error", "not a valid date: " + date));
+            return;
+        }
+        long startTime = System.nanoTime();
+        List<OrdersForFiles> orders;
+        try {
+            orders = plan(date);
+        } catch (IOException e) {
+            respond(exchange, 502, Map.of("error", String.valueOf(e)));
+            return;
+        } catch (RuntimeException e) {
+            respond(exchange, 500, Map.of("error", String.valueOf(e)));
+            return;
+        }
+        int delivered = 0;
+        for (OrdersForFiles order : orders) {
+            if (order.getOrderStatus() == OrderStatus.DELIVERED) {
+                delivered++;
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("date", date);
+        body.put("orders", orders.size());
+        body.put("delivered", delivered);
+        body.put("millis", (System.nanoTime() - startTime) / 1_000_000);
+        respond(exchange, 200, body);
+    }
+
+    /**
+     * This is a helper function that answers a request to collect the reference data again
+     * @param exchange is the request
+     * @throws IOException if the answer cannot be sent
+     */
+    private void handleRefresh(HttpExchange exchange) throws IOException {
+        if (!allowed(exchange, "POST")) {
+            return;
+        }
+        try {
+            Resident current = resident(true);
+            respond(exchange, 200, Map.of("restaurants", current.reference().restaurants().length,
+                    "noFlyZones", current.reference().noFlyZones().length));
+        } catch (IOException e) {
+            respond(exchange, 502, Map.of("error", String.valueOf(e)));
+        }
+    }
+
+    /**
+     * This is a helper function that answers a request asking if the server is alive
+     * @param exchange is the request
+     * @throws IOException if the answer cannot be sent
+     */
+    private void handleIsAlive(HttpExchange exchange) throws IOException {
+        if (allowed(exchange, "GET")) {
+            respond(exchange, 200, true);
+        }
+    }
+
+    /**
+     * This is a helper function that checks a request uses the right method, and answers it with 405 if it does not
+     * @param exchange is the request
+     * @param method is the method the endpoint allows
+     * @return boolean returns true if the request uses the method
+     * @throws IOException if the answer cannot be sent
+     */
+    private static boolean allowed(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().add("Allow", method);
+        respond(exchange, 405, Map.of("error", "only " + method + " is allowed"));
+        return false;
+    }
+
+    /**
+     * This is a helper function that answers a request with a JSON body
+     * @param exchange is the request
+     * @param status is the status code of the answer
+     * @param body is the object that is written as the JSON body
+     * @throws IOException if the answer cannot be sent
+     */
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = RestClient.OBJECT_MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package uk.ac.ed.inf;
+
+/**
+ * This is a record of a flight path that FlightPath planned, together with how far from the shortest path it may be
+ * @param path is the path that the drone will take, or null if no path was found
+ * @param bound is the most the path can be longer than the shortest path, as a multiple of it, so 1 means the path is
+ *              the shortest one. It is infinite if no path was found
+ * @param expansions is the number of nodes the search expanded to find the path
+ */
+public record PlannedPath(PackedPath path, double bound, int expansions) {
+}
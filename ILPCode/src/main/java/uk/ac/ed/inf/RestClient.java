@@ -0,0 +1,524 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * This is a class that collects everything the program needs from the Rest server. Every request goes through one
+ * HttpClient, which keeps its connections open between requests, and asks for the response to be gzipped. The five
+ * requests for a day are sent at the same time, so collecting them takes about as long as the slowest one instead of
+ * all five one after another. The orders can also be read one at a time while they are still arriving.
+ * <p>
+ * The responses can also be recorded into a snapshot directory as they arrive, and a RestClient can be opened on a
+ * snapshot directory instead of a server, in which case every response is read from the snapshot with no requests
+ * sent at all. See Snapshot for how the directory is laid out
+ */
+public class RestClient {
+    //How long a request may take before it is given up on
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    //The client every RestClient sends its requests through, so connections are shared between them
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(DEFAULT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+    //The thread that closes the body of a response once a read of it has waited longer than the timeout, shared by
+    //every RestClient. It is a daemon so it never keeps the program running
+    private static final ScheduledExecutorService DEADLINES = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "RestClient deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //The objectMapper every response is read with. An ObjectMapper is thread safe once it is set up
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new IlpDataModule());
+
+    private final URI baseUrl;
+    private final Duration timeout;
+    //The snapshot directory the responses are read from instead of the server, or null if they come from the server
+    private final Path snapshot;
+    //The snapshot directory the responses from the server are recorded into, or null if they are not recorded
+    private final Path recordTo;
+
+    /**
+     * This is the initializer for the RestClient class. Every request may take up to DEFAULT_TIMEOUT
+     * @param baseUrl is the url of the Rest server, with or without a / at the end
+     */
+    public RestClient(String baseUrl) {
+        this(baseUrl, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * This is the initializer for the RestClient class
+     * @param baseUrl is the url of the Rest server, with or without a / at the end
+     * @param timeout is how long each request may take before it is given up on
+     * @throws IllegalArgumentException if the url is not a valid url
+     */
+    public RestClient(String baseUrl, Duration timeout) {
+        this(baseUrl, timeout, null);
+    }
+
+    /**
+     * This is the initializer for the RestClient class
+     * @param baseUrl is the url of the Rest server, with or without a / at the end
+     * @param timeout is how long each request may take before it is given up on
+     * @param recordTo is the snapshot directory every response is recorded into, or null to not record them
+     * @throws IllegalArgumentException if the url is not a valid url
+     */
+    public RestClient(String baseUrl, Duration timeout, Path recordTo) {
+        //checks if the url ends with a / and if it does not then it adds one
+        if (baseUrl.isEmpty() || baseUrl.charAt(baseUrl.length() - 1) != '/') {
+            baseUrl = baseUrl + '/';
+        }
+        this.baseUrl = URI.create(baseUrl);
+        if (this.baseUrl.getScheme() == null || this.baseUrl.getHost() == null) {
+            throw new IllegalArgumentException("not a valid url: " + baseUrl);
+        }
+        this.timeout = timeout;
+        this.snapshot = null;
+        this.recordTo = recordTo;
+    }
+
+    /**
+     * This is the initializer for a RestClient that reads every response from a snapshot directory
+     * @param snapshot is the snapshot directory
+     */
+    private RestClient(Path snapshot) {
+        this.baseUrl = snapshot.toAbsolutePath().toUri();
+        this.timeout = DEFAULT_TIMEOUT;
+        this.snapshot = snapshot;
+        this.recordTo = null;
+    }
+
+    /**
+     * This function opens a RestClient on either a Rest server or a snapshot directory that was recorded earlier
+     * @param source is the url of the Rest server or the path of an existing snapshot directory
+     * @param recordTo is the snapshot directory the responses from the server are recorded into, or null to not record
+     *                 them. It is not used when reading from a snapshot
+     * @return RestClient returns the client
+     * @throws IllegalArgumentException if the source is neither a valid url nor an existing directory
+     */
+    public static RestClient open(String source, Path recordTo) {
+        try {
+            Path directory = Path.of(source);
+            if (Files.isDirectory(directory)) {
+                return new RestClient(directory);
+            }
+        } catch (InvalidPathException e) {
+            //it is not a path, so it is read as a url
+        }
+        return new RestClient(source, DEFAULT_TIMEOUT, recordTo);
+    }
+
+    /**
+     * This is a record of everything the Rest server gives the program for one day
+     */
+    public record DayData(Restaurant[] restaurants, Order[] orders, NamedRegion centralArea,
+                          NamedRegion[] noFlyZones) {
+    }
+
+    /**
+     * This is a record of everything the Rest server gives the program that is the same for every day
+     */
+    public record ReferenceData(Restaurant[] restaurants, NamedRegion centralArea, NamedRegion[] noFlyZones) {
+    }
+
+    /**
+     * This function asks the Rest server if it is alive
+     * @return boolean returns true if the server says it is alive
+     * @throws IOException if the server can not be reached or does not answer in time
+     */
+    public boolean isAlive() throws IOException {
+        return join(fetch("isAlive", new TypeReference<Boolean>() {
+        }));
+    }
+
+    /**
+     * This function collects the restaurants, the orders of a day, the central area and the nofly zones, and checks
+     * the server is alive, with all five requests sent at the same time
+     * @param date is the date of the orders, as yyyy-mm-dd
+     * @return DayData returns everything that was collected
+     * @throws IOException if any of the requests fails, does not answer in time or the server is not alive
+     */
+    public DayData fetchDay(String date) throws IOException {
+        CompletableFuture<Boolean> alive = fetch("isAlive", new TypeReference<>() {
+        });
+        CompletableFuture<Restaurant[]> restaurants = fetch("restaurants", new TypeReference<>() {
+        });
+        CompletableFuture<Order[]> orders = fetch("orders/" + date, new TypeReference<>() {
+        });
+        CompletableFuture<NamedRegion> centralArea = fetch("centralArea", new TypeReference<>() {
+        });
+        CompletableFuture<NamedRegion[]> noFlyZones = fetch("noFlyZones", new TypeReference<>() {
+        });
+        if (!join(alive)) {
+            throw new IOException("the Rest server at " + baseUrl + " is not alive");
+        }
+        return new DayData(join(restaurants), join(orders), join(centralArea), join(noFlyZones));
+    }
+
+    /**
+     * This function collects the restaurants, the central area and the nofly zones, and checks the server is alive,
+     * with all four requests sent at the same time
+     * @return ReferenceData returns everything that was collected
+     * @throws IOException if any of the requests fails, does not answer in time or the server is not alive
+     */
+    public ReferenceData fetchReference() throws IOException {
+        return join(fetchReferenceAsync());
+    }
+
+    /**
+     * This function sends the requests for the restaurants, the central area and the nofly zones, and checks the
+     * server is alive, without waiting for them to answer
+     * @return CompletableFuture<ReferenceData> returns everything that was collected once all four have answered
+     */
+    public CompletableFuture<ReferenceData> fetchReferenceAsync() {
+        CompletableFuture<Boolean> alive = fetch("isAlive", new TypeReference<>() {
+        });
+        CompletableFuture<Restaurant[]> restaurants = fetch("restaurants", new TypeReference<>() {
+        });
+        CompletableFuture<NamedRegion> centralArea = fetch("centralArea", new TypeReference<>() {
+        });
+        CompletableFuture<NamedRegion[]> noFlyZones = fetch("noFlyZones", new TypeReference<>() {
+        });
+        return CompletableFuture.allOf(alive, restaurants, centralArea, noFlyZones).thenApply(ignored -> {
+            if (!alive.join()) {
+                throw new UncheckedIOException(new IOException("the Rest server at " + baseUrl + " is not alive"));
+            }
+            return new ReferenceData(restaurants.join(), centralArea.join(), noFlyZones.join());
+        });
+    }
+
+    /**
+     * This function collects the orders of a day
+     * @param date is the date of the orders, as yyyy-mm-dd
+     * @return Order[] returns the orders
+     * @throws IOException if the request fails or does not answer in time
+     */
+    public Order[] fetchOrders(String date) throws IOException {
+        return join(fetch("orders/" + date, new TypeReference<Order[]>() {
+        }));
+    }
+
+    /**
+     * This function sends the request for the orders of a day and returns a stream the orders can be read from one at
+     * a time while the rest of the response is still arriving. Nothing is waited for until the stream is read
+     * @param date is the date of the orders, as yyyy-mm-dd
+     * @return OrderStream returns the stream of orders
+     */
+    public OrderStream streamOrders(String date) {
+        String endpoint = "orders/" + date;
+        if (snapshot != null) {
+            return new OrderStream(baseUrl.resolve(endpoint), readSnapshot(endpoint, body -> body));
+        }
+        HttpRequest request = request(endpoint);
+        return new OrderStream(request.uri(), HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try {
+                        InputStream body = body(request, response);
+                        if (recordTo == null) {
+                            return body;
+                        }
+                        //a recorded response is read whole so it can be written to the snapshot first
+                        try (body) {
+                            byte[] bytes = body.readAllBytes();
+                            Snapshot.save(recordTo, endpoint, bytes);
+                            return new ByteArrayInputStream(bytes);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    /**
+     * This is an interface for the functions that are given each order as it is read
+     */
+    @FunctionalInterface
+    public interface OrderHandler {
+        void accept(Order order) throws IOException;
+    }
+
+    /**
+     * This is a class that reads the orders of a day out of the response one at a time with a JsonParser, so only one
+     * order is being parsed at once and each can be used before the next has arrived
+     */
+    public static final class OrderStream {
+        private final URI source;
+        private final CompletableFuture<InputStream> body;
+
+        private OrderStream(URI source, CompletableFuture<InputStream> body) {
+            this.source = source;
+            this.body = body;
+        }
+
+        /**
+         * This function reads every order in the response and gives each one to the handler as soon as it has been
+         * read
+         * @param handler is the function each order is given to
+         * @return int returns the number of orders that were read
+         * @throws IOException if the request fails, the response is not an array of orders or the handler fails
+         */
+        public int forEach(OrderHandler handler) throws IOException {
+            try (InputStream received = join(body);
+                 JsonParser parser = OBJECT_MAPPER.createParser(received)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new IOException("the orders from " + source + " are not an array");
+                }
+                int count = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    handler.accept(OBJECT_MAPPER.readValue(parser, Order.class));
+                    count++;
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new IOException("the orders from " + source + " are not an array of orders");
+                }
+                return count;
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that makes the request for an endpoint of the server
+     * @param endpoint is the path of the request after the url of the server
+     * @return HttpRequest returns the request
+     */
+    private HttpRequest request(String endpoint) {
+        return HttpRequest.newBuilder(baseUrl.resolve(endpoint))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+    }
+
+    /**
+     * This is a helper function that sends a request and reads the JSON response once all of it has arrived. The
+     * timeout of the request only covers waiting for the headers, so the whole response is also given up on if it has
+     * not all arrived within the timeout
+     * @param endpoint is the path of the request after the url of the server
+     * @param type is the type the response is read as
+     * @return CompletableFuture<T> returns the response once it has been read
+     */
+    <T> CompletableFuture<T> fetch(String endpoint, TypeReference<T> type) {
+        if (snapshot != null) {
+            return readSnapshot(endpoint, body -> {
+                try (body) {
+                    return OBJECT_MAPPER.readValue(body, type);
+                }
+            });
+        }
+        HttpRequest request = request(endpoint);
+        return HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new UncheckedIOException(failed(request, response));
+                    }
+                    try (InputStream body = decode(response, new ByteArrayInputStream(response.body()))) {
+                        if (recordTo == null) {
+                            return OBJECT_MAPPER.readValue(body, type);
+                        }
+                        byte[] bytes = body.readAllBytes();
+                        Snapshot.save(recordTo, endpoint, bytes);
+                        return OBJECT_MAPPER.readValue(bytes, type);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * This is an interface for the functions that read a response out of its body
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * This is a helper function that reads the response of an endpoint from the snapshot directory. The file is
+     * mapped straight away, so the returned future is already complete
+     * @param endpoint is the path of the request after the url of the server
+     * @param reader is the function the response is read with
+     * @return CompletableFuture<T> returns the response, or the reason it could not be read
+     */
+    private <T> CompletableFuture<T> readSnapshot(String endpoint, BodyReader<T> reader) {
+        try {
+            return CompletableFuture.completedFuture(reader.read(Snapshot.open(snapshot, endpoint)));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+    }
+
+    /**
+     * This is a helper function that returns the body of a streamed response after checking the request succeeded.
+     * The timeout of the request only covers waiting for the headers, so each read of the body is given its own
+     * deadline
+     * @param request is the request
+     * @param response is the response
+     * @return InputStream returns the body, unzipped if the server gzipped it
+     * @throws IOException if the request did not succeed
+     */
+    private InputStream body(HttpRequest request, HttpResponse<InputStream> response) throws IOException {
+        InputStream received = response.body();
+        if (response.statusCode() != 200) {
+            received.close();
+            throw failed(request, response);
+        }
+        return decode(response, new DeadlineInputStream(received, request.uri(), timeout));
+    }
+
+    /**
+     * This is a helper function that makes the error for a request that did not succeed
+     * @param request is the request
+     * @param response is the response
+     * @return IOException returns the error
+     */
+    private static IOException failed(HttpRequest request, HttpResponse<?> response) {
+        return new IOException("request to " + request.uri() + " returned " + response.statusCode());
+    }
+
+    /**
+     * This is a helper function that returns the body of a response, unzipping it if the server gzipped it
+     * @param response is the response
+     * @param body is the body as it was received
+     * @return InputStream returns the body
+     * @throws IOException if the body is not valid gzip
+     */
+    static InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip")).orElse(false);
+        return gzipped ? new GZIPInputStream(body) : body;
+    }
+
+    /**
+     * This is a class that gives up on the body of a response once a single read of it has waited longer than the
+     * timeout, by closing the body from the deadline thread, which wakes the read that is waiting. A server that sends
+     * the headers and then stops sending therefore can not keep the program waiting forever, however long the whole
+     * body takes to arrive while it keeps arriving
+     */
+    private static final class DeadlineInputStream extends FilterInputStream {
+        private final URI source;
+        private final Duration timeout;
+        //Whether a read waited longer than the timeout and the body was closed
+        private volatile boolean expired = false;
+
+        /**
+         * This is the initializer for the DeadlineInputStream class
+         * @param in is the body as it is received
+         * @param source is the url the body comes from
+         * @param timeout is how long a single read may wait
+         */
+        private DeadlineInputStream(InputStream in, URI source, Duration timeout) {
+            super(in);
+            this.source = source;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            ScheduledFuture<?> deadline = DEADLINES.schedule(this::expire, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            int read;
+            try {
+                read = in.read(bytes, offset, length);
+            } catch (IOException e) {
+                //closing the body makes the read that was waiting fail, which is reported as the timeout
+                if (expired) {
+                    throw timedOut();
+                }
+                throw e;
+            } finally {
+                deadline.cancel(false);
+            }
+            if (expired) {
+                throw timedOut();
+            }
+            return read;
+        }
+
+        /**
+         * This is a helper function that closes the body once a read has waited longer than the timeout
+         */
+        private void expire() {
+            expired = true;
+            try {
+                in.close();
+            } catch (IOException e) {
+                //the read that is waiting still finds the body closed
+            }
+        }
+
+        /**
+         * This is a helper function that makes the error for a read that waited longer than the timeout
+         * @return HttpTimeoutException returns the error
+         */
+        private HttpTimeoutException timedOut() {
+            return new HttpTimeoutException("the response from " + source + " stopped arriving for longer than "
+                    + timeout.toMillis() + "ms");
+        }
+    }
+
+    /**
+     * This is a helper function that waits for a request and turns whatever made it fail back into an IOException
+     * @param future is the request that is waited for
+     * @return T returns the response
+     * @throws IOException if the request failed
+     */
+    static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            //a response that did not all arrive within the timeout is reported the same way as the HttpClient reports
+            //one whose headers did not arrive in time
+            if (cause instanceof TimeoutException) {
+                throw new HttpTimeoutException("request timed out");
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is a class that keeps the path from Appleton tower to every restaurant that has been needed so far, so each
+ * path is only calculated once however many orders and dates need it. Paths are looked for in memory first, then in
+ * the route store, and only calculated if neither has them. It can be shared by several threads processing different
+ * dates at the same time
+ */
+public class RouteCache {
+    //Kept in place of the path to a restaurant no path could be found to, so it is not searched for again
+    private static final PackedPath NO_PATH = PackedPath.of(new double[]{0}, new double[]{0}, new byte[0]);
+
+    private final LngLat start;
+    private final NamedRegion[] noFlyZones;
+    private final NamedRegion centralArea;
+    private final FlightPath flightPath;
+    private final RouteStore routeStore;
+    //The path to each restaurant, with the restaurant name and location as the key, so a restaurant that has moved
+    //is not given the path to where it used to be
+    private final Map<Destination, PackedPath> restaurantPaths = new ConcurrentHashMap<>();
+    //The index of the nofly zones and central area, which is only built the first time a path has to be calculated
+    private GeofenceIndex geofence;
+
+    /**
+     * This is a record of the name and location of a restaurant, which the paths in memory are kept under
+     */
+    private record Destination(String name, LngLat location) {
+    }
+
+    /**
+     * This is the initializer for the RouteCache class
+     * @param start is the point every path starts at
+     * @param noFlyZones is the array of nofly zones the paths go around
+     * @param centralArea is the central area the paths may not re-enter
+     * @param flightPath is the FlightPath the paths are calculated with
+     * @param routeStoreFile is the file the paths are kept in between runs of the program
+     */
+    public RouteCache(LngLat start, NamedRegion[] noFlyZones, NamedRegion centralArea, FlightPath flightPath,
+                      Path routeStoreFile) {
+        this.start = start;
+        this.noFlyZones = noFlyZones;
+        this.centralArea = centralArea;
+        this.flightPath = flightPath;
+        this.routeStore = RouteStore.open(routeStoreFile, noFlyZones, centralArea, flightPath.searchHash());
+    }
+
+    /**
+     * This function returns the path to each of the given restaurants, calculating the ones that are not known yet
+     * from a single search tree. Only one thread calculates paths at a time, so two dates that need the same new
+     * restaurant do not both calculate it
+     * @param restaurants is the map of the location of each restaurant, with the restaurant name as the key
+     * @return Map<String, PackedPath> returns the path to each restaurant that a path was found to, with the
+     * restaurant name as the key. Restaurants no path could be found to are left out
+     */
+    public Map<String, PackedPath> pathsTo(Map<String, LngLat> restaurants) {
+        LinkedHashMap<String, PackedPath> paths = new LinkedHashMap<>();
+        if (!collectKnown(restaurants, paths)) {
+            synchronized (this) {
+                //another thread may have calculated some of them while this one was waiting
+                LinkedHashMap<String, LngLat> toCalculate = new LinkedHashMap<>();
+                for (Map.Entry<String, LngLat> entry : restaurants.entrySet()) {
+                    if (!paths.containsKey(entry.getKey())
+                            && !restaurantPaths.containsKey(new Destination(entry.getKey(), entry.getValue()))) {
+                        toCalculate.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                calculate(toCalculate);
+            }
+            collectKnown(restaurants, paths);
+        }
+        return paths;
+    }
+
+    /**
+     * This function returns the path to a restaurant if it is already in memory or in the route store, without
+     * calculating it
+     * @param name is the name of the restaurant
+     * @param location is the location of the restaurant
+     * @return PackedPath returns the path, or null if it has not been calculated or no path could be found
+     */
+    public PackedPath knownPath(String name, LngLat location) {
+        Map<String, PackedPath> paths = new LinkedHashMap<>(1);
+        collectKnown(Map.of(name, location), paths);
+        return paths.get(name);
+    }
+
+    /**
+     * This function writes the paths that have been calculated to the route store file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        routeStore.save();
+    }
+
+    /**
+     * This is a helper function that adds the paths to the restaurants that are already in memory or in the route
+     * store to a map
+     * @param restaurants is the map of the location of each restaurant, with the restaurant name as the key
+     * @param paths is the map the known paths are added to
+     * @return boolean returns true if every restaurant had a known path
+     */
+    private boolean collectKnown(Map<String, LngLat> restaurants, Map<String, PackedPath> paths) {
+        boolean allKnown = true;
+        for (Map.Entry<String, LngLat> entry : restaurants.entrySet()) {
+            Destination destination = new Destination(entry.getKey(), entry.getValue());
+            PackedPath path = restaurantPaths.get(destination);
+            if (path == null) {
+                //paths that were calculated by an earlier run for the same nofly zones and central area are read
+                //from the route store instead of being calculated again
+                path = routeStore.get(start, entry.getValue());
+                if (path != null) {
+                    restaurantPaths.put(destination, path);
+                }
+            }
+            if (path == null) {
+                allKnown = false;
+            }
+            else if (path != NO_PATH) {
+                paths.put(entry.getKey(), path);
+            }
+        }
+        return allKnown;
+    }
+
+    /**
+     * This is a helper function that calculates the paths to the restaurants from a single search tree and adds them
+     * to memory and the route store
+     * @param toCalculate is the map of the location of each restaurant, with the restaurant name as the key
+     */
+    private void calculate(Map<String, LngLat> toCalculate) {
+        if (toCalculate.isEmpty()) {
+            return;
+        }
+        //builds the index of the nofly zones and central area once for every date
+        if (geofence == null) {
+            geofence = new GeofenceIndex(noFlyZones, centralArea);
+        }
+        Map<String, PackedPath> calculated = flightPath.calculateFlightPathTree(geofence, start, toCalculate);
+        for (Map.Entry<String, PackedPath> entry : calculated.entrySet()) {
+            LngLat location = toCalculate.get(entry.getKey());
+            Destination destination = new Destination(entry.getKey(), location);
+            if (entry.getValue() == null) {
+                restaurantPaths.put(destination, NO_PATH);
+                continue;
+            }
+            restaurantPaths.put(destination, entry.getValue());
+            routeStore.put(start, location, entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is a class that keeps the calculated paths to the restaurants in a file, so that they do not have to be
+ * calculated again the next time the program runs. Every path is stored under its start and end point, and the whole
+ * file belongs to one set of nofly zones and central area and one search, identified by a hash of the contents of the
+ * regions and the search mode of the FlightPath. If the file was written for different regions or a different search
+ * none of its paths are used, and it is replaced when the store is next saved, so paths from a search that is not
+ * exact are never given to a run that asked for the shortest paths, or the other way round.
+ * <p>
+ * The file is a header (magic number, version, store hash and number of paths) followed by one entry per path:
+ * the start and end point, the number of coordinates, the longitude and latitude of every coordinate and then one
+ * byte for the direction of every move, all big endian. It is read through a memory mapped buffer and each path is
+ * only decoded when it is asked for
+ */
+public class RouteStore {
+    private static final int MAGIC = 0x50445253;
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+
+    private final Path file;
+    //The hash of the regions and search the paths were calculated for
+    private final long storeHash;
+    //The buffer the file was loaded into, and the position of each stored path in it
+    private final ByteBuffer loaded;
+    private final Map<RouteKey, Integer> loadedOffsets = new LinkedHashMap<>();
+    //The paths that have been added since the file was loaded
+    private final Map<RouteKey, PackedPath> added = new ConcurrentHashMap<>();
+    private volatile boolean changed;
+
+    /**
+     * This is a record that identifies a stored path by its start and end point
+     */
+    private record RouteKey(double startLng, double startLat, double endLng, double endLat) {
+        RouteKey(LngLat start, LngLat end) {
+            this(start.lng(), start.lat(), end.lng(), end.lat());
+        }
+    }
+
+    /**
+     * This is the initializer for the RouteStore class. Use open to load a store from a file
+     */
+    private RouteStore(Path file, long storeHash, ByteBuffer loaded, boolean changed) {
+        this.file = file;
+        this.storeHash = storeHash;
+        this.loaded = loaded;
+        this.changed = changed;
+    }
+
+    /**
+     * This function opens the route store kept in a file for the paths of the default search, which are the shortest
+     * paths. If the file does not exist, cannot be read, or was written for different regions or a different search,
+     * the store starts empty
+     * @param file is the file the paths are kept in
+     * @param noFlyZones is the array of nofly zones the paths are calculated for
+     * @param centralArea is the central area the paths are calculated for
+     * @return RouteStore returns the opened store
+     */
+    public static RouteStore open(Path file, NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        return open(file, noFlyZones, centralArea, FlightPath.searchHash(SearchMode.UNIDIRECTIONAL,
+                FlightPath.DEFAULT_EPSILON, FlightPath.DEFAULT_TIME_BUDGET));
+    }
+
+    /**
+     * This function opens the route store kept in a file. If the file does not exist, cannot be read, or was written
+     * for different regions or a different search, the store starts empty
+     * @param file is the file the paths are kept in
+     * @param noFlyZones is the array of nofly zones the paths are calculated for
+     * @param centralArea is the central area the paths are calculated for
+     * @param searchHash is the searchHash of the FlightPath the paths are calculated with
+     * @return RouteStore returns the opened store
+     */
+    public static RouteStore open(Path file, NamedRegion[] noFlyZones, NamedRegion centralArea, long searchHash) {
+        long storeHash = storeHash(noFlyZones, centralArea, searchHash);
+        if (!Files.isRegularFile(file)) {
+            return new RouteStore(file, storeHash, null, false);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getLong(8) != storeHash) {
+                //the file is from an older version or for different regions or search, so it will be written again
+                return new RouteStore(file, storeHash, null, true);
+            }
+            RouteStore store = new RouteStore(file, storeHash, buffer, false);
+            int count = buffer.getInt(16);
+            if (count < 0) {
+                throw new IOException("negative number of paths");
+            }
+            long offset = HEADER_BYTES;
+            for (int i = 0; i < count; i++) {
+                //every entry must have at least one coordinate and fit inside the file, so decode cannot fail later
+                if (offset + 32 + 4 > buffer.limit()) {
+                    throw new IOException("the file ends in the middle of a path");
+                }
+                int size = buffer.getInt((int) offset + 32);
+                if (size < 1 || offset + 32 + entryBytes(size) > buffer.limit()) {
+                    throw new IOException("a path has an invalid number of coordinates");
+                }
+                RouteKey key = new RouteKey(buffer.getDouble((int) offset), buffer.getDouble((int) offset + 8),
+                        buffer.getDouble((int) offset + 16), buffer.getDouble((int) offset + 24));
+                store.loadedOffsets.put(key, (int) offset + 32);
+                offset += 32 + entryBytes(size);
+            }
+            return store;
+        } catch (IOException | IndexOutOfBoundsException e) {
+            System.err.println("Route store " + file + " could not be read, starting with an empty store");
+            return new RouteStore(file, storeHash, null, true);
+        }
+    }
+
+    /**
+     * This function returns the stored path between two points
+     * @param start is the start point of the path
+     * @param end is the end point of the path
+     * @return PackedPath returns the stored path, or null if there is no path stored for these points
+     */
+    public PackedPath get(LngLat start, LngLat end) {
+        RouteKey key = new RouteKey(start, end);
+        PackedPath path = added.get(key);
+        if (path != null) {
+            return path;
+        }
+        Integer offset = loadedOffsets.get(key);
+        return offset == null ? null : decode(offset);
+    }
+
+    /**
+     * This function adds a path to the store. It is only written to the file when save is called
+     * @param start is the start point of the path
+     * @param end is the end point of the path
+     * @param path is the path between the two points
+     */
+    public void put(LngLat start, LngLat end, PackedPath path) {
+        if (path != null) {
+            added.put(new RouteKey(start, end), path);
+            changed = true;
+        }
+    }
+
+    /**
+     * This function writes the store back to its file if any paths have been added. The file is written to a
+     * temporary file first and then moved into place, so a failed write never leaves a broken store behind
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        //collects every path, with the paths added since loading replacing the loaded ones
+        LinkedHashMap<RouteKey, PackedPath> paths = new LinkedHashMap<>();
+        for (Map.Entry<RouteKey, Integer> entry : loadedOffsets.entrySet()) {
+            paths.put(entry.getKey(), decode(entry.getValue()));
+        }
+        paths.putAll(added);
+
+        //ChannelOutputStream makes its temporary file with the default permissions and only renames it onto the file
+        //once it has all been written
+        try (ChannelOutputStream channel = new ChannelOutputStream(file, FsyncPolicy.NONE,
+                ChannelOutputStream.DEFAULT_BUFFER_SIZE)) {
+            DataOutputStream out = new DataOutputStream(channel);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(storeHash);
+            out.writeInt(paths.size());
+            for (Map.Entry<RouteKey, PackedPath> entry : paths.entrySet()) {
+                RouteKey key = entry.getKey();
+                out.writeDouble(key.startLng());
+                out.writeDouble(key.startLat());
+                out.writeDouble(key.endLng());
+                out.writeDouble(key.endLat());
+                PackedPath path = entry.getValue();
+                out.writeInt(path.size());
+                for (int i = 0; i < path.size(); i++) {
+                    out.writeDouble(path.lng(i));
+                    out.writeDouble(path.lat(i));
+                }
+                for (int i = 0; i < path.moves(); i++) {
+                    out.writeByte(path.direction(i));
+                }
+            }
+            out.flush();
+            channel.commit();
+        }
+        changed = false;
+    }
+
+    /**
+     * This is a helper function that reads a path out of the loaded buffer
+     * @param offset is the position of the number of coordinates of the path
+     * @return PackedPath returns the path
+     */
+    private PackedPath decode(int offset) {
+        int size = loaded.getInt(offset);
+        double[] lng = new double[size];
+        double[] lat = new double[size];
+        byte[] directions = new byte[size - 1];
+        for (int i = 0; i < size; i++) {
+            int position = offset + 4 + i * 16;
+            lng[i] = loaded.getDouble(position);
+            lat[i] = loaded.getDouble(position + 8);
+        }
+        loaded.get(offset + 4 + size * 16, directions);
+        return new PackedPath(lng, lat, directions, false);
+    }
+
+    /**
+     * This is a helper function that returns the number of bytes a path takes up after its start and end point
+     * @param size is the number of coordinates of the path
+     * @return int returns the number of bytes
+     */
+    private static long entryBytes(int size) {
+        return 4 + size * 16L + size - 1;
+    }
+
+    /**
+     * This function calculates a hash of the contents of the nofly zones and central area. Any change to a region
+     * name, to a vertex, or to the drone move distances gives a different hash
+     * @param noFlyZones is the array of nofly zones
+     * @param centralArea is the central area
+     * @return long returns the hash
+     */
+    public static long geometryHash(NamedRegion[] noFlyZones, NamedRegion centralArea) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, Double.doubleToLongBits(SystemConstants.DRONE_MOVE_DISTANCE));
+        hash = mix(hash, Double.doubleToLongBits(SystemConstants.DRONE_IS_CLOSE_DISTANCE));
+        hash = mix(hash, noFlyZones.length);
+        for (NamedRegion zone : noFlyZones) {
+            hash = mixRegion(hash, zone);
+        }
+        return mixRegion(hash, centralArea);
+    }
+
+    /**
+     * This function calculates the hash a route store file is kept under, from the contents of the nofly zones and
+     * central area and the search the paths are calculated with
+     * @param noFlyZones is the array of nofly zones
+     * @param centralArea is the central area
+     * @param searchHash is the searchHash of the FlightPath the paths are calculated with
+     * @return long returns the hash
+     */
+    public static long storeHash(NamedRegion[] noFlyZones, NamedRegion centralArea, long searchHash) {
+        return mix(geometryHash(noFlyZones, centralArea), searchHash);
+    }
+
+    /**
+     * This is a helper function that adds a region to a hash
+     */
+    private static long mixRegion(long hash, NamedRegion region) {
+        String name = region.name() == null ? "" : region.name();
+        hash = mix(hash, name.length());
+        for (int i = 0; i < name.length(); i++) {
+            hash = mix(hash, name.charAt(i));
+        }
+        hash = mix(hash, region.vertices().length);
+        for (LngLat vertex : region.vertices()) {
+            hash = mix(hash, Double.doubleToLongBits(vertex.lng()));
+            hash = mix(hash, Double.doubleToLongBits(vertex.lat()));
+        }
+        return hash;
+    }
+
+    /**
+     * This is a helper function that adds a value to a hash, one byte at a time, using FNV-1a
+     */
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
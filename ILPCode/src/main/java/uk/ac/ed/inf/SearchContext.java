@@ -0,0 +1,63 @@
+package uk.ac.ed.inf;
+
+/**
+ * This is a class that holds the state of a single A star search. A SearchContext is only ever used by one search at
+ * a time, so searches running on different threads never share their open and closed sets. A context can be reset and
+ * reused for the next search, which keeps all of its arrays so that a search allocates almost nothing
+ */
+class SearchContext {
+    //The size of the lattice cells that positions are snapped to when they are turned into keys. Two positions closer
+    //than this are treated as the same node, which merges routes that reach the same point but differ in the last bits
+    static final double LATTICE_QUANTUM = 1e-9;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    //Stores the values of every node that has been reached
+    final NodeArena arena = new NodeArena(INITIAL_CAPACITY);
+    //Maps the lattice key of every reached node to its index in the arena. Whether the node is on the open or closed
+    //set is stored in the arena
+    final LongIntHashMap nodes = new LongIntHashMap(INITIAL_CAPACITY);
+    //This Prioritises what node will be visited next depending on the f value
+    final IndexedOpenSet openSet = new IndexedOpenSet(arena, INITIAL_CAPACITY);
+    //This boolean value will help Figure out if the drone has left and then re entered the central area which is not
+    //allowed
+    boolean isInCentral = true;
+    //How many times the estimated distance to the end counts in the f value of a node. Anything above 1 makes the
+    //search greedier
+    double weight = 1;
+    //The positions of the neighbours of the node that is being expanded, one for each angle
+    final double[] neighbourLng = new double[LngLatHandler.DIRECTION_ANGLES.length];
+    final double[] neighbourLat = new double[LngLatHandler.DIRECTION_ANGLES.length];
+    //The number of nodes that have been taken off the open set and expanded
+    int expansions = 0;
+    //The position the lattice keys are measured from
+    private double originLng, originLat;
+
+    /**
+     * This function clears the context so it can be used for a new search
+     * @param lng is the longitude of the start of the new search
+     * @param lat is the latitude of the start of the new search
+     */
+    void reset(double lng, double lat) {
+        arena.clear();
+        nodes.clear();
+        openSet.clear();
+        isInCentral = true;
+        weight = 1;
+        expansions = 0;
+        originLng = lng;
+        originLat = lat;
+    }
+
+    /**
+     * This function snaps a position to the lattice and packs it into a single long. The position must be within
+     * about two degrees of the start of the search
+     * @param lng is the longitude of the position
+     * @param lat is the latitude of the position
+     * @return long returns the lattice key of the position
+     */
+    long latticeKey(double lng, double lat) {
+        long x = Math.round((lng - originLng) / LATTICE_QUANTUM);
+        long y = Math.round((lat - originLat) / LATTICE_QUANTUM);
+        return (x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
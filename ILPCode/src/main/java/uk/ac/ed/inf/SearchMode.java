@@ -0,0 +1,20 @@
+package uk.ac.ed.inf;
+
+/**
+ * This is an enum of the ways a FlightPath can search for the path between two points
+ */
+public enum SearchMode {
+    //A single A star search from the start towards the end
+    UNIDIRECTIONAL,
+    //Two A star searches, one from the start and one backwards from the end, which stop once they meet
+    BIDIRECTIONAL,
+    //A single A star search where the estimated distance to the end counts epsilon times, which expands far fewer
+    //nodes but may return a path up to epsilon times longer than the shortest one
+    WEIGHTED,
+    //A weighted search that is run again with a smaller epsilon each time until epsilon reaches 1 or the time budget
+    //runs out, keeping the shortest path it has found
+    ANYTIME,
+    //A route around the nofly zones is found on a visibility graph of their corners first, and the A star search then
+    //only has to fly from one corner of the route to the next
+    HIERARCHICAL
+}
@@ -0,0 +1,107 @@
+package uk.ac.ed.inf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This is a class that keeps the responses of the Rest server in a snapshot directory, so a day can be processed again
+ * later without the server. Each endpoint is kept as its own JSON file, exactly as the server sent it, under the path
+ * of the endpoint: isAlive.json, restaurants.json, centralArea.json, noFlyZones.json and orders/yyyy-mm-dd.json.
+ * The files are read back through memory mapped buffers, so reading one is no more than the page cache copying it
+ */
+final class Snapshot {
+
+    private Snapshot() {
+    }
+
+    /**
+     * This is a helper function that returns the file an endpoint is kept in
+     * @param directory is the snapshot directory
+     * @param endpoint is the path of the request after the url of the server
+     * @return Path returns the file
+     */
+    static Path file(Path directory, String endpoint) {
+        return directory.resolve(endpoint + ".json");
+    }
+
+    /**
+     * This function writes the response of an endpoint into the snapshot directory, replacing the response that was
+     * kept before
+     * @param directory is the snapshot directory
+     * @param endpoint is the path of the request after the url of the server
+     * @param body is the response, already unzipped
+     * @throws IOException if the file cannot be written
+     */
+    static void save(Path directory, String endpoint, byte[] body) throws IOException {
+        try (ChannelOutputStream out = new ChannelOutputStream(file(directory, endpoint), FsyncPolicy.NONE,
+                Math.max(1, Math.min(body.length, ChannelOutputStream.DEFAULT_BUFFER_SIZE)))) {
+            out.write(body);
+            out.commit();
+        }
+    }
+
+    /**
+     * This function opens the response of an endpoint that was kept in the snapshot directory
+     * @param directory is the snapshot directory
+     * @param endpoint is the path of the request after the url of the server
+     * @return InputStream returns the response, read from a memory mapped buffer of the file
+     * @throws IOException if the snapshot does not have the endpoint or the file cannot be mapped
+     */
+    static InputStream open(Path directory, String endpoint) throws IOException {
+        Path file = file(directory, endpoint);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //the mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BufferInputStream(buffer);
+        } catch (NoSuchFileException e) {
+            throw new IOException("the snapshot at " + directory + " does not have " + endpoint, e);
+        }
+    }
+
+    /**
+     * This is a class that reads the bytes of a ByteBuffer as an InputStream
+     */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, chunk);
+            return chunk;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
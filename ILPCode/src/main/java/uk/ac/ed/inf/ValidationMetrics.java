@@ -0,0 +1,91 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This is a class that counts how many orders OrderValidator gave each validation code and how long each of its rules
+ * took in total. Every counter is a LongAdder, which spreads its updates over several cells, so the threads of
+ * validateOrders can all record into the same ValidationMetrics without waiting for each other. The counts are only
+ * exact once every order being recorded has finished
+ */
+public class ValidationMetrics {
+
+    /**
+     * This is an enum of the rules OrderValidator checks, in the order it checks them. The card number, expiry date
+     * and CVV are checked together in a single pass, so they are timed as one rule
+     */
+    public enum Rule {
+        CARD,
+        TOTAL,
+        PIZZA_DEFINED,
+        PIZZA_COUNT,
+        SINGLE_RESTAURANT,
+        RESTAURANT_OPEN
+    }
+
+    //The number of orders given each validation code, indexed by the ordinal of the code
+    private final LongAdder[] codeCounts = new LongAdder[OrderValidationCode.values().length];
+    //The nanoseconds spent in each rule, indexed by the ordinal of the rule
+    private final LongAdder[] ruleNanos = new LongAdder[Rule.values().length];
+
+    /**
+     * This is the initializer for the ValidationMetrics class. Every counter starts at 0
+     */
+    public ValidationMetrics() {
+        for (int i = 0; i < codeCounts.length; i++) {
+            codeCounts[i] = new LongAdder();
+        }
+        for (int i = 0; i < ruleNanos.length; i++) {
+            ruleNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * This function records that an order was given a validation code
+     * @param code is the validation code the order was given
+     */
+    public void recordCode(OrderValidationCode code) {
+        codeCounts[code.ordinal()].increment();
+    }
+
+    /**
+     * This function records the time one rule took to check one order
+     * @param rule is the rule that was checked
+     * @param nanos is the time it took in nanoseconds
+     */
+    public void recordTime(Rule rule, long nanos) {
+        ruleNanos[rule.ordinal()].add(nanos);
+    }
+
+    /**
+     * This function returns the number of orders that were given a validation code
+     * @param code is the validation code
+     * @return long returns the number of orders
+     */
+    public long count(OrderValidationCode code) {
+        return codeCounts[code.ordinal()].sum();
+    }
+
+    /**
+     * This function returns the number of orders that were validated
+     * @return long returns the number of orders
+     */
+    public long orders() {
+        long orders = 0;
+        for (LongAdder count : codeCounts) {
+            orders += count.sum();
+        }
+        return orders;
+    }
+
+    /**
+     * This function returns the total time one rule took over every order it checked
+     * @param rule is the rule
+     * @return long returns the time in nanoseconds
+     */
+    public long nanos(Rule rule) {
+        return ruleNanos[rule.ordinal()].sum();
+    }
+}
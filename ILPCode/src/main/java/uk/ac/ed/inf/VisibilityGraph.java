@@ -0,0 +1,217 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a class that finds a rough route between two points that goes around the nofly zones, which the lattice
+ * search can then follow one leg at a time. The corners of the nofly zones and the central area are pushed out of
+ * their regions by VERTEX_MARGIN to become the nodes of the graph, and two nodes are joined if the drone could fly
+ * straight from one to the other. A straight line may not pass through a nofly zone, and if it starts outside the
+ * central area it may not enter it, the same as hasReEnteredCentral in FlightPath. Since a line may leave the central
+ * area but never enter it, the edges of the graph only go one way
+ */
+class VisibilityGraph {
+    //How far the nodes are pushed away from the corners of the regions, so that the drone can reach them without
+    //touching the edges next to the corner
+    static final double VERTEX_MARGIN = 3 * SystemConstants.DRONE_MOVE_DISTANCE;
+    //How far apart the points that are checked along a straight line are
+    private static final double SAMPLE_STEP = SystemConstants.DRONE_MOVE_DISTANCE / 4;
+
+    private final GeofenceIndex geofence;
+    private final double[] lng, lat;
+    //The length of the edge from each node to each other node, or infinity if the drone can not fly straight there
+    private final double[][] edges;
+
+    /**
+     * This is the initializer for the VisibilityGraph class
+     * @param geofence is the index of the nofly zones and central area the graph goes around
+     */
+    VisibilityGraph(GeofenceIndex geofence) {
+        this.geofence = geofence;
+        List<LngLat> nodes = new ArrayList<>();
+        for (NamedRegion zone : geofence.getNoFlyZones()) {
+            addCorners(zone, nodes);
+        }
+        addCorners(geofence.getCentralArea(), nodes);
+        lng = new double[nodes.size()];
+        lat = new double[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            lng[i] = nodes.get(i).lng();
+            lat[i] = nodes.get(i).lat();
+        }
+        edges = new double[lng.length][lng.length];
+        for (int from = 0; from < lng.length; from++) {
+            for (int to = 0; to < lng.length; to++) {
+                edges[from][to] = from != to && canFlyStraight(lng[from], lat[from], lng[to], lat[to])
+                        ? distance(lng[from], lat[from], lng[to], lat[to]) : Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * This is a helper function that returns the number of nodes in the graph, not counting the start and end
+     * @return int returns the number of nodes
+     */
+    int size() {
+        return lng.length;
+    }
+
+    /**
+     * This is the function that finds the shortest route through the graph from the start to the end
+     * @param start is the starting point of the drone
+     * @param end is the end point of the drone
+     * @return List<LngLat> returns the points of the route, starting with the start and finishing with the end, or
+     * null if the end can not be reached through the graph
+     */
+    List<LngLat> route(LngLat start, LngLat end) {
+        int nodeCount = lng.length;
+        int startNode = nodeCount;
+        int endNode = nodeCount + 1;
+        double[] distances = new double[nodeCount + 2];
+        int[] previous = new int[nodeCount + 2];
+        boolean[] done = new boolean[nodeCount + 2];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        distances[startNode] = 0;
+        //the graph only has a few dozen nodes, so Dijkstra with a linear scan for the closest node is fast enough
+        while (true) {
+            int current = -1;
+            for (int node = 0; node < nodeCount + 2; node++) {
+                if (!done[node] && distances[node] != Double.POSITIVE_INFINITY
+                        && (current == -1 || distances[node] < distances[current])) {
+                    current = node;
+                }
+            }
+            if (current == -1 || current == endNode) {
+                break;
+            }
+            done[current] = true;
+            double currentLng = current == startNode ? start.lng() : lng[current];
+            double currentLat = current == startNode ? start.lat() : lat[current];
+            for (int next = 0; next < nodeCount + 2; next++) {
+                if (done[next] || next == startNode) {
+                    continue;
+                }
+                double length;
+                if (next == endNode) {
+                    length = canFlyStraight(currentLng, currentLat, end.lng(), end.lat())
+                            ? distance(currentLng, currentLat, end.lng(), end.lat()) : Double.POSITIVE_INFINITY;
+                }
+                else if (current == startNode) {
+                    length = canFlyStraight(currentLng, currentLat, lng[next], lat[next])
+                            ? distance(currentLng, currentLat, lng[next], lat[next]) : Double.POSITIVE_INFINITY;
+                }
+                else {
+                    length = edges[current][next];
+                }
+                if (distances[current] + length < distances[next]) {
+                    distances[next] = distances[current] + length;
+                    previous[next] = current;
+                }
+            }
+        }
+        if (distances[endNode] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        //follows the previous nodes back from the end and reverses them
+        List<LngLat> route = new ArrayList<>();
+        route.add(end);
+        for (int node = previous[endNode]; node != startNode; node = previous[node]) {
+            route.add(new LngLat(lng[node], lat[node]));
+        }
+        route.add(start);
+        Collections.reverse(route);
+        return route;
+    }
+
+    /**
+     * This is a helper function that checks if the drone could fly in a straight line between two points. Points
+     * SAMPLE_STEP apart along the line are checked, so a line that only cuts a corner of a region by less than that
+     * may be allowed, which the lattice search following the route will go around
+     * @param fromLng is the longitude of the first point
+     * @param fromLat is the latitude of the first point
+     * @param toLng is the longitude of the second point
+     * @param toLat is the latitude of the second point
+     * @return boolean returns true if no point of the line is in a nofly zone and the line does not enter the central
+     * area after being outside it
+     */
+    boolean canFlyStraight(double fromLng, double fromLat, double toLng, double toLat) {
+        int steps = (int) Math.ceil(distance(fromLng, fromLat, toLng, toLat) / SAMPLE_STEP);
+        boolean isInCentral = geofence.isInCentral(fromLng, fromLat);
+        for (int step = 1; step <= steps; step++) {
+            double sampleLng = fromLng + (toLng - fromLng) * step / steps;
+            double sampleLat = fromLat + (toLat - fromLat) * step / steps;
+            if (geofence.isInNoFly(sampleLng, sampleLat)) {
+                return false;
+            }
+            boolean sampleInCentral = geofence.isInCentral(sampleLng, sampleLat);
+            if (!isInCentral && sampleInCentral) {
+                return false;
+            }
+            isInCentral = sampleInCentral;
+        }
+        return true;
+    }
+
+    /**
+     * This is a helper function that pushes every corner of a region away from the region by VERTEX_MARGIN, along the
+     * line halfway between its two edges, and adds it to the nodes. Corners that point into the region and corners
+     * that end up in a nofly zone are left out, since a shortest route never needs them
+     * @param region is the region whose corners are added
+     * @param nodes is the list the corners are added to
+     */
+    private void addCorners(NamedRegion region, List<LngLat> nodes) {
+        LngLat[] vertices = region.vertices();
+        int count = vertices.length;
+        //regions often repeat their first vertex at the end
+        if (count > 1 && vertices[0].equals(vertices[count - 1])) {
+            count--;
+        }
+        for (int i = 0; i < count; i++) {
+            LngLat corner = vertices[i];
+            LngLat before = vertices[(i + count - 1) % count];
+            LngLat after = vertices[(i + 1) % count];
+            double outLng = unit(corner.lng() - before.lng(), corner.lat() - before.lat(), true)
+                    + unit(corner.lng() - after.lng(), corner.lat() - after.lat(), true);
+            double outLat = unit(corner.lng() - before.lng(), corner.lat() - before.lat(), false)
+                    + unit(corner.lng() - after.lng(), corner.lat() - after.lat(), false);
+            double length = Math.sqrt(outLng * outLng + outLat * outLat);
+            if (length == 0) {
+                continue;
+            }
+            double nodeLng = corner.lng() + outLng / length * VERTEX_MARGIN;
+            double nodeLat = corner.lat() + outLat / length * VERTEX_MARGIN;
+            if (FlightPath.lngLatHandler.isInRegion(new LngLat(nodeLng, nodeLat), region)
+                    || geofence.isInNoFly(nodeLng, nodeLat)) {
+                continue;
+            }
+            nodes.add(new LngLat(nodeLng, nodeLat));
+        }
+    }
+
+    /**
+     * This is a helper function that returns one part of a vector scaled to length 1
+     * @param x is the longitude part of the vector
+     * @param y is the latitude part of the vector
+     * @param lngPart is true for the longitude part and false for the latitude part
+     * @return double returns the part of the unit vector
+     */
+    private static double unit(double x, double y, boolean lngPart) {
+        double length = Math.sqrt(x * x + y * y);
+        if (length == 0) {
+            return 0;
+        }
+        return (lngPart ? x : y) / length;
+    }
+
+    private static double distance(double fromLng, double fromLat, double toLng, double toLat) {
+        return Math.sqrt((toLng - fromLng) * (toLng - fromLng) + (toLat - fromLat) * (toLat - fromLat));
+    }
+}
@@ -4,6 +4,8 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import java.util.List;
+
 /**
  * Unit test for simple App.
  */
@@ -34,4 +36,54 @@ public class AppTest
     {
         assertTrue( true );
     }
+
+    /**
+     * Test that a range of dates includes both ends
+     */
+    public void testParseDates()
+    {
+        assertEquals( List.of( "2023-11-15" ), App.parseDates( "2023-11-15" ) );
+        assertEquals( List.of( "2023-11-30", "2023-12-01", "2023-12-02" ),
+                App.parseDates( "2023-11-30..2023-12-02" ) );
+        try {
+            App.parseDates( "2023-12-02..2023-11-30" );
+            fail();
+        } catch ( IllegalArgumentException e ) {
+            assertTrue( true );
+        }
+    }
+
+    /**
+     * Test that a mode given as a system property is read, and that a wrong one is found
+     */
+    public void testSearchModeProperty()
+    {
+        try {
+            assertEquals( SearchMode.UNIDIRECTIONAL,
+                    App.enumProperty( "searchMode", SearchMode.class, SearchMode.UNIDIRECTIONAL ) );
+            System.setProperty( "searchMode", "WEIGHTED" );
+            assertEquals( SearchMode.WEIGHTED,
+                    App.enumProperty( "searchMode", SearchMode.class, SearchMode.UNIDIRECTIONAL ) );
+            System.setProperty( "searchMode", "weighted" );
+            assertNull( App.enumProperty( "searchMode", SearchMode.class, SearchMode.UNIDIRECTIONAL ) );
+        } finally {
+            System.clearProperty( "searchMode" );
+        }
+    }
+
+    /**
+     * Test that an fsync policy given as a system property is read, and that a wrong one is found
+     */
+    public void testFsyncProperty()
+    {
+        try {
+            System.setProperty( "fsync", "FILE_AND_DIRECTORY" );
+            assertEquals( FsyncPolicy.FILE_AND_DIRECTORY,
+                    App.enumProperty( "fsync", FsyncPolicy.class, FsyncPolicy.NONE ) );
+            System.setProperty( "fsync", "always" );
+            assertNull( App.enumProperty( "fsync", FsyncPolicy.class, FsyncPolicy.NONE ) );
+        } finally {
+            System.clearProperty( "fsync" );
+        }
+    }
 }
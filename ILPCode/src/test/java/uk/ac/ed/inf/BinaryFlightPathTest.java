@@ -0,0 +1,112 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryFlightPathTest {
+
+    /**
+     * Builds a path from appleton that flies the given directions, the same way the search does
+     */
+    PackedPath fly(int... directions) {
+        double[] nextLng = new double[16];
+        double[] nextLat = new double[16];
+        LngLat position = new LngLat(-3.186874, 55.944494);
+        PackedPath.Builder builder = new PackedPath.Builder(position.lng(), position.lat());
+        for (int direction : directions) {
+            LngLatHandler.nextPositions(builder.lastLng(), builder.lastLat(), nextLng, nextLat);
+            builder.move(nextLng[direction], nextLat[direction], direction);
+        }
+        return builder.build();
+    }
+
+    byte[] write(Map<String, PackedPath> paths) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryFlightPath.write(out, paths);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void convertsToSameJsonTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        paths.put("A", fly(0, 3, 3, 15, 8));
+        paths.put("B", fly(12, 12, 11));
+        paths.put("C", fly());
+
+        StringWriter expected = new StringWriter();
+        try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(expected)) {
+            new FileGenerator().generateFlightpathJson(generator, paths);
+        }
+        StringWriter converted = new StringWriter();
+        try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(converted)) {
+            BinaryFlightPath.toJson(new ByteArrayInputStream(write(paths)), generator);
+        }
+        assertEquals(expected.toString(), converted.toString());
+    }
+
+    @Test
+    public void readerTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        paths.put("A", fly(4, 4));
+        byte[] bytes = write(paths);
+        //header with the number of orders, then the order number, start point, move count and one byte per move
+        assertEquals(12 + 3 + 16 + 4 + 6, bytes.length);
+
+        BinaryFlightPath.Reader reader = new BinaryFlightPath.Reader(new ByteArrayInputStream(bytes));
+        int rows = 0;
+        FlightPathForFiles last = null;
+        while (reader.hasNext()) {
+            last = reader.next();
+            rows++;
+        }
+        assertNull(reader.getFailure());
+        assertEquals(6, rows);
+        //the last hover of the last order finishes back at appleton
+        assertEquals(999.0, last.getAngle(), 0);
+        assertEquals(-3.186874, last.getToLongitude(), 0);
+        assertEquals(55.944494, last.getToLatitude(), 0);
+    }
+
+    @Test
+    public void truncatedFileTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        paths.put("A", fly(4, 4));
+        paths.put("B", fly(0));
+        byte[] bytes = write(paths);
+        int firstOrderEnd = 12 + 3 + 16 + 4 + 6;
+        //cut at the end of the first order, inside the second order number and inside the moves of the second order
+        for (int length : new int[]{firstOrderEnd, firstOrderEnd + 2, bytes.length - 1}) {
+            ByteArrayOutputStream json = new ByteArrayOutputStream();
+            try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(json)) {
+                BinaryFlightPath.toJson(new ByteArrayInputStream(Arrays.copyOf(bytes, length)), generator);
+                fail("a file cut to " + length + " bytes was read without an error");
+            } catch (IOException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notBinaryFileTest() throws IOException {
+        new BinaryFlightPath.Reader(new ByteArrayInputStream("[{}]xxxxxxxx".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offLatticePathTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        //the second point is not where a move in direction 0 lands
+        paths.put("A", PackedPath.of(new double[]{-3.186874, -3.0}, new double[]{55.944494, 55.9}, new byte[]{0}));
+        write(paths);
+    }
+}
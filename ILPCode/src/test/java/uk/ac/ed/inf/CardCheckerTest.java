@@ -0,0 +1,59 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.CreditCardInformation;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class CardCheckerTest {
+
+    LocalDate orderDate = LocalDate.of(2023, 11, 15);
+
+    OrderValidationCode check(String number, String expiry, String cvv) {
+        return CardChecker.check(new CreditCardInformation(number, expiry, cvv), orderDate);
+    }
+
+    @Test
+    public void validCardTest() {
+        assertEquals(OrderValidationCode.NO_ERROR, check("1134178901234567", "12/25", "111"));
+    }
+
+    @Test
+    public void cardNumberTest() {
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, check(null, "12/25", "111"));
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, check("113417890123456", "12/25", "111"));
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, check("1134178901234567a", "12/25", "111"));
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, check("A134178901234567", "12/25", "111"));
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, CardChecker.check(null, orderDate));
+    }
+
+    @Test
+    public void expiryTest() {
+        //the card is valid until the end of its expiry month
+        assertTrue(CardChecker.expiryValid("11/23", orderDate));
+        assertFalse(CardChecker.expiryValid("10/23", orderDate));
+        assertTrue(CardChecker.expiryValid("01/24", orderDate));
+        assertFalse(CardChecker.expiryValid("12/22", orderDate));
+        assertFalse(CardChecker.expiryValid("13/25", orderDate));
+        assertTrue(CardChecker.expiryValid("12/25/00", orderDate));
+        //expiry dates that are not made of digits are invalid
+        assertFalse(CardChecker.expiryValid(null, orderDate));
+        assertFalse(CardChecker.expiryValid("1225", orderDate));
+        assertFalse(CardChecker.expiryValid("12/", orderDate));
+        assertFalse(CardChecker.expiryValid("/25", orderDate));
+        assertFalse(CardChecker.expiryValid("1a/25", orderDate));
+        assertFalse(CardChecker.expiryValid("-1/25", orderDate));
+        assertFalse(CardChecker.expiryValid("12/99999999999", orderDate));
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, check("1134178901234567", "12/22", "111"));
+    }
+
+    @Test
+    public void cvvTest() {
+        assertEquals(OrderValidationCode.CVV_INVALID, check("1134178901234567", "12/25", "1A1"));
+        assertEquals(OrderValidationCode.CVV_INVALID, check("1134178901234567", "12/25", "1111"));
+        assertEquals(OrderValidationCode.CVV_INVALID, check("1134178901234567", "12/25", null));
+    }
+}
@@ -0,0 +1,51 @@
+package uk.ac.ed.inf;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ChannelOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void commitTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("out.json");
+        //more bytes than the buffer holds, so the buffer is drained several times
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        try (ChannelOutputStream out = new ChannelOutputStream(file, FsyncPolicy.FILE_AND_DIRECTORY, 64)) {
+            out.write(bytes, 0, 500);
+            out.write(7);
+            out.write(bytes, 500, 500);
+            out.commit();
+        }
+        byte[] written = Files.readAllBytes(file);
+        assertEquals(1001, written.length);
+        assertArrayEquals(Arrays.copyOf(bytes, 500), Arrays.copyOf(written, 500));
+        assertEquals(7, written[500]);
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void uncommittedTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("out.json");
+        Files.writeString(file, "old");
+        try (ChannelOutputStream out = new ChannelOutputStream(file, FsyncPolicy.NONE, 64)) {
+            out.write(new byte[200], 0, 200);
+        }
+        //the old file is left as it was and the temporary file is gone
+        assertEquals("old", Files.readString(file));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import uk.ac.ed.inf.ilp.data.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * This is a benchmark for IlpDataModule. It builds a large array of orders like the ones the Rest server gives and
+ * reads it several times with the default reflective binding and with the hand written deserializers, printing the
+ * time each read takes. The first reads of each are left out so the JIT has compiled both before they are timed.
+ * It is not a unit test, it is run by hand with its main function
+ */
+public class DeserializerBenchmark {
+
+    static final String[] PIZZAS = {"R1: Margarita", "R1: Calzone", "R2: Meat Lover", "R2: Vegan Delight",
+            "R3: Super Cheese", "R3: All Shrooms", "R4: Proper Pizza", "R4: Pineapple & Ham & Cheese"};
+
+    /**
+     * This is a helper function that builds a JSON array of orders
+     * @param count is the number of orders
+     * @return byte[] returns the JSON
+     */
+    static byte[] ordersJson(int count) {
+        StringBuilder json = new StringBuilder(count * 400).append('[');
+        LocalDate date = LocalDate.of(2023, 11, 15);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            String first = PIZZAS[i % PIZZAS.length];
+            String second = PIZZAS[(i / PIZZAS.length) % PIZZAS.length];
+            json.append("{\"orderNo\":\"").append(String.format("%08X", i))
+                    .append("\",\"orderDate\":\"").append(date.plusDays(i % 30))
+                    .append("\",\"orderStatus\":\"UNDEFINED\",\"orderValidationCode\":\"UNDEFINED\"")
+                    .append(",\"priceTotalInPence\":").append(2100 + i % 500)
+                    .append(",\"pizzasInOrder\":[{\"name\":\"").append(first).append("\",\"priceInPence\":1000},")
+                    .append("{\"name\":\"").append(second).append("\",\"priceInPence\":1000}]")
+                    .append(",\"creditCardInformation\":{\"creditCardNumber\":\"")
+                    .append(String.format("%016d", 4000000000000000L + i))
+                    .append("\",\"creditCardExpiry\":\"").append(String.format("%02d/28", 1 + i % 12))
+                    .append("\",\"cvv\":\"").append(String.format("%03d", i % 1000)).append("\"}}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This is a helper function that reads the orders a number of times and returns the fastest read
+     * @param mapper is the mapper the orders are read with
+     * @param json is the JSON of the orders
+     * @param runs is the number of timed reads
+     * @return long returns the fastest read in nanoseconds
+     * @throws Exception if the orders cannot be read
+     */
+    static long fastestRead(ObjectMapper mapper, byte[] json, int runs) throws Exception {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long startTime = System.nanoTime();
+            Order[] orders = mapper.readValue(json, Order[].class);
+            fastest = Math.min(fastest, System.nanoTime() - startTime);
+            if (orders.length == 0) {
+                throw new IllegalStateException("no orders were read");
+            }
+        }
+        return fastest;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        byte[] json = ordersJson(count);
+        ObjectMapper reflective = new ObjectMapper().registerModule(new JavaTimeModule());
+        ObjectMapper handWritten = new ObjectMapper().registerModule(new JavaTimeModule())
+                .registerModule(new IlpDataModule());
+        System.out.printf("orders=%d size=%.1fMB%n", count, json.length / 1e6);
+
+        //warms up both mappers before anything is timed
+        fastestRead(reflective, json, 5);
+        fastestRead(handWritten, json, 5);
+
+        long reflectiveNanos = fastestRead(reflective, json, 10);
+        long handWrittenNanos = fastestRead(handWritten, json, 10);
+        System.out.printf("reflective time=%.2fms %.0f orders/s%n", reflectiveNanos / 1e6,
+                count / (reflectiveNanos / 1e9));
+        System.out.printf("hand written time=%.2fms %.0f orders/s%n", handWrittenNanos / 1e6,
+                count / (handWrittenNanos / 1e9));
+    }
+}
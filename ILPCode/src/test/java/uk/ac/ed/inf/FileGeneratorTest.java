@@ -0,0 +1,107 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FileGeneratorTest {
+
+    LngLatHandler lngLatHandler = new LngLatHandler();
+
+    /**
+     * Builds a path from appleton that flies the given directions
+     */
+    PackedPath fly(int... directions) {
+        LngLat position = new LngLat(-3.186874, 55.944494);
+        PackedPath.Builder builder = new PackedPath.Builder(position.lng(), position.lat());
+        for (int direction : directions) {
+            position = lngLatHandler.nextPosition(position, LngLatHandler.DIRECTION_ANGLES[direction]);
+            builder.move(position.lng(), position.lat(), direction);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the flightpath file for the given paths into a string
+     */
+    String flightpath(FileGenerator fileGenerator, Map<String, PackedPath> paths, boolean pretty) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(writer)) {
+            if (pretty) {
+                generator.useDefaultPrettyPrinter();
+            }
+            fileGenerator.generateFlightpathJson(generator, paths);
+        }
+        return writer.toString();
+    }
+
+    @Test
+    public void emptyGeoJsonTest() throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(writer)) {
+            new FileGenerator().generateGeoJsonPath(generator, new LinkedHashMap<>());
+        }
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}", writer.toString());
+    }
+
+    @Test
+    public void flightpathTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        paths.put("A", fly(0, 3));
+        paths.put("B", fly(15));
+        FileGenerator fileGenerator = new FileGenerator(true);
+        JsonNode moves = new ObjectMapper().readTree(flightpath(fileGenerator, paths, false));
+        //every move there and back, plus a hover at each end
+        assertEquals(2 + 1 + 2 + 1 + 1 + 1 + 1 + 1, moves.size());
+        assertEquals(0, fileGenerator.getAngleMismatches());
+        assertEquals(22.5, moves.get(0).get("angle").asDouble(), 0);
+        assertEquals(999.0, moves.get(2).get("angle").asDouble(), 0);
+        //the hover back at appleton finishes where the next order starts
+        JsonNode lastHoverOfA = moves.get(5);
+        assertEquals(999.0, lastHoverOfA.get("angle").asDouble(), 0);
+        assertEquals("A", lastHoverOfA.get("orderNo").asText());
+        assertEquals(paths.get("B").lng(0), lastHoverOfA.get("toLongitude").asDouble(), 0);
+    }
+
+    @Test
+    public void prettyPrintTest() throws IOException {
+        Map<String, PackedPath> paths = new LinkedHashMap<>();
+        paths.put("A", fly(0, 3, 7));
+        String compact = flightpath(new FileGenerator(), paths, false);
+        String pretty = flightpath(new FileGenerator(), paths, true);
+        assertFalse(compact.contains("\n"));
+        assertTrue(pretty.contains("\n"));
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.readTree(compact), mapper.readTree(pretty));
+    }
+
+    @Test
+    public void validationMetricsTest() throws IOException {
+        ValidationMetrics metrics = new ValidationMetrics();
+        metrics.recordCode(OrderValidationCode.NO_ERROR);
+        metrics.recordCode(OrderValidationCode.CVV_INVALID);
+        metrics.recordTime(ValidationMetrics.Rule.CARD, 250);
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = FileGenerator.JSON_FACTORY.createGenerator(writer)) {
+            new FileGenerator().generateValidationMetricsJson(generator, "2023-11-15", metrics);
+        }
+        JsonNode json = new ObjectMapper().readTree(writer.toString());
+        assertEquals("2023-11-15", json.get("date").asText());
+        assertEquals(2, json.get("orders").asLong());
+        assertEquals(1, json.get("validationCodes").get("CVV_INVALID").asLong());
+        assertEquals(0, json.get("validationCodes").get("RESTAURANT_CLOSED").asLong());
+        assertEquals(OrderValidationCode.values().length, json.get("validationCodes").size());
+        assertEquals(250, json.get("ruleNanos").get("CARD").asLong());
+        assertEquals(ValidationMetrics.Rule.values().length, json.get("ruleNanos").size());
+    }
+}
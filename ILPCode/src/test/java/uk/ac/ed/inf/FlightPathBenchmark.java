@@ -0,0 +1,170 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This is a benchmark for FlightPath. It calculates the path from Appleton tower to every restaurant using the real
+ * nofly zones and central area, and prints the number of expanded Coordinates and the time taken for each one. Each
+ * path is calculated by the usual search, then by the bidirectional search, then by the weighted, anytime and
+ * hierarchical searches and then all together from a single tree.
+ * It is not a unit test, it is run by hand with its main function
+ */
+public class FlightPathBenchmark {
+
+    static final LngLat APPLETON = new LngLat(-3.186874, 55.944494);
+
+    static final NamedRegion CENTRAL_AREA = new NamedRegion("central", new LngLat[]{
+            new LngLat(-3.192473, 55.946233),
+            new LngLat(-3.192473, 55.942617),
+            new LngLat(-3.184319, 55.942617),
+            new LngLat(-3.184319, 55.946233)});
+
+    static final NamedRegion[] NO_FLY_ZONES = {
+            new NamedRegion("George Square Area", new LngLat[]{
+                    new LngLat(-3.190578818321228, 55.94402412577528),
+                    new LngLat(-3.1899887323379517, 55.94284650540911),
+                    new LngLat(-3.187097311019897, 55.94328811724263),
+                    new LngLat(-3.187682032585144, 55.944477740393744),
+                    new LngLat(-3.190578818321228, 55.94402412577528)}),
+            new NamedRegion("Dr Elsie Inglis Quadrangle", new LngLat[]{
+                    new LngLat(-3.1907182931900024, 55.94519570234043),
+                    new LngLat(-3.1906163692474365, 55.94498241796357),
+                    new LngLat(-3.1900262832641597, 55.94507554227258),
+                    new LngLat(-3.190133571624756, 55.94529783810495),
+                    new LngLat(-3.1907182931900024, 55.94519570234043)}),
+            new NamedRegion("Bristo Square Open Area", new LngLat[]{
+                    new LngLat(-3.189543485641479, 55.94552313663306),
+                    new LngLat(-3.189382553100586, 55.94553214854692),
+                    new LngLat(-3.189259171485901, 55.94544803726933),
+                    new LngLat(-3.1892001628875732, 55.94533688994374),
+                    new LngLat(-3.189194798469543, 55.94519570234043),
+                    new LngLat(-3.189135789871216, 55.94511759833873),
+                    new LngLat(-3.188138008117676, 55.9452738061846),
+                    new LngLat(-3.1885409355163574, 55.946105902745614),
+                    new LngLat(-3.1895381212234497, 55.94555918427592),
+                    new LngLat(-3.189543485641479, 55.94552313663306)}),
+            new NamedRegion("Bayes Central Area", new LngLat[]{
+                    new LngLat(-3.1876927614212036, 55.94520696732767),
+                    new LngLat(-3.187555968761444, 55.9449621408666),
+                    new LngLat(-3.186981976032257, 55.94505676722831),
+                    new LngLat(-3.1872327625751495, 55.94536993377657),
+                    new LngLat(-3.1876927614212036, 55.94520696732767)})};
+
+    static final LngLat[] RESTAURANTS = {
+            new LngLat(-3.1912869215011597, 55.945535152517735),
+            new LngLat(-3.202541470527649, 55.943284737579376),
+            new LngLat(-3.1838572025299072, 55.94449876875712),
+            new LngLat(-3.1940174102783203, 55.94390696616939),
+            new LngLat(-3.1810810679852035, 55.938910643735845),
+            new LngLat(-3.185428203143916, 55.945846113595),
+            new LngLat(-3.179798972064253, 55.939884084483086)};
+
+    public static void main(String[] args) {
+        FlightPath flightPath = new FlightPath();
+        GeofenceIndex geofence = new GeofenceIndex(NO_FLY_ZONES, CENTRAL_AREA);
+        //runs every search a few times first so the JIT has compiled the search before it is timed
+        for (int i = 0; i < 3; i++) {
+            for (LngLat restaurant : RESTAURANTS) {
+                flightPath.calculateFlightPath(geofence, APPLETON, restaurant);
+            }
+        }
+        long totalExpansions = 0;
+        int totalMoves = 0;
+        long totalNanos = 0;
+        for (LngLat restaurant : RESTAURANTS) {
+            SearchContext context = new SearchContext();
+            long startTime = System.nanoTime();
+            PackedPath path = flightPath.calculateFlightPath(geofence, APPLETON, restaurant, context);
+            long nanos = System.nanoTime() - startTime;
+            totalExpansions += context.expansions;
+            totalMoves += path == null ? 0 : path.moves();
+            totalNanos += nanos;
+            System.out.printf("%s moves=%d expansions=%d time=%.2fms%n", restaurant,
+                    path == null ? -1 : path.moves(), context.expansions, nanos / 1e6);
+        }
+        System.out.printf("total moves=%d expansions=%d time=%.2fms%n", totalMoves, totalExpansions, totalNanos / 1e6);
+
+        //calculates the paths to every restaurant again, this time searching from both ends
+        for (int i = 0; i < 3; i++) {
+            for (LngLat restaurant : RESTAURANTS) {
+                new BidirectionalSearch().search(geofence, APPLETON, restaurant);
+            }
+        }
+        totalExpansions = 0;
+        totalMoves = 0;
+        totalNanos = 0;
+        for (LngLat restaurant : RESTAURANTS) {
+            BidirectionalSearch search = new BidirectionalSearch();
+            long startTime = System.nanoTime();
+            PackedPath path = search.search(geofence, APPLETON, restaurant);
+            long nanos = System.nanoTime() - startTime;
+            int expansions = search.forward.expansions + search.backward.expansions;
+            totalExpansions += expansions;
+            totalMoves += path == null ? 0 : path.moves();
+            totalNanos += nanos;
+            System.out.printf("bidirectional %s moves=%d expansions=%d time=%.2fms%n", restaurant,
+                    path == null ? -1 : path.moves(), expansions, nanos / 1e6);
+        }
+        System.out.printf("bidirectional total moves=%d expansions=%d time=%.2fms%n", totalMoves, totalExpansions,
+                totalNanos / 1e6);
+
+        //calculates the paths to every restaurant again with the weighted and anytime searches
+        for (double epsilon : new double[]{1.5, 2, 3}) {
+            benchmarkMode(new FlightPath(ForkJoinPool.commonPool(), SearchMode.WEIGHTED, epsilon,
+                    FlightPath.DEFAULT_TIME_BUDGET), geofence, "weighted epsilon=" + epsilon);
+        }
+        benchmarkMode(new FlightPath(ForkJoinPool.commonPool(), SearchMode.ANYTIME, 3, Duration.ofMillis(20)),
+                geofence, "anytime epsilon=3 budget=20ms");
+        benchmarkMode(new FlightPath(ForkJoinPool.commonPool(), SearchMode.HIERARCHICAL), geofence, "hierarchical");
+
+        //calculates the paths to every restaurant again, this time from a single search tree
+        LinkedHashMap<Integer, LngLat> ends = new LinkedHashMap<>();
+        for (int i = 0; i < RESTAURANTS.length; i++) {
+            ends.put(i, RESTAURANTS[i]);
+        }
+        for (int i = 0; i < 3; i++) {
+            flightPath.calculateFlightPathTree(geofence, APPLETON, ends);
+        }
+        SearchContext context = new SearchContext();
+        long startTime = System.nanoTime();
+        Map<Integer, PackedPath> paths = flightPath.calculateFlightPathTree(geofence, APPLETON, ends, context);
+        long nanos = System.nanoTime() - startTime;
+        int moves = 0;
+        for (PackedPath path : paths.values()) {
+            moves += path == null ? 0 : path.moves();
+        }
+        System.out.printf("single tree moves=%d expansions=%d time=%.2fms%n", moves, context.expansions, nanos / 1e6);
+    }
+
+    /**
+     * Calculates the path to every restaurant with planFlightPath and prints the total number of moves, expanded
+     * Coordinates and time taken, and the largest bound of any path
+     */
+    static void benchmarkMode(FlightPath flightPath, GeofenceIndex geofence, String name) {
+        for (int i = 0; i < 3; i++) {
+            for (LngLat restaurant : RESTAURANTS) {
+                flightPath.planFlightPath(geofence, APPLETON, restaurant);
+            }
+        }
+        long totalExpansions = 0;
+        int totalMoves = 0;
+        long totalNanos = 0;
+        double worstBound = 1;
+        for (LngLat restaurant : RESTAURANTS) {
+            long startTime = System.nanoTime();
+            PlannedPath planned = flightPath.planFlightPath(geofence, APPLETON, restaurant);
+            totalNanos += System.nanoTime() - startTime;
+            totalExpansions += planned.expansions();
+            totalMoves += planned.path() == null ? 0 : planned.path().moves();
+            worstBound = Math.max(worstBound, planned.bound());
+        }
+        System.out.printf("%s total moves=%d expansions=%d time=%.2fms bound=%.3f%n", name, totalMoves,
+                totalExpansions, totalNanos / 1e6, worstBound);
+    }
+}
@@ -0,0 +1,182 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.constant.SystemConstants;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class FlightPathTest {
+
+    static LngLatHandler lngLatHandler = new LngLatHandler();
+    static GeofenceIndex geofence = new GeofenceIndex(FlightPathBenchmark.NO_FLY_ZONES,
+            FlightPathBenchmark.CENTRAL_AREA);
+    FlightPath flightPath = new FlightPath();
+
+    /**
+     * Checks that a path starts at the start, ends close to the end, only makes moves of the drone move distance,
+     * never enters a nofly zone and never re-enters the central area after leaving it
+     */
+    static void assertValidPath(PackedPath path, LngLat start, LngLat end) {
+        assertNotNull(path);
+        assertEquals(start, path.get(0));
+        assertTrue(lngLatHandler.isCloseTo(path.get(path.size() - 1), end));
+        boolean leftCentral = false;
+        for (int i = 1; i < path.size(); i++) {
+            LngLat from = path.get(i - 1);
+            LngLat to = path.get(i);
+            assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, lngLatHandler.distanceTo(from, to), 1e-12);
+            //the recorded direction of every move must be the move that was flown
+            assertEquals(to, lngLatHandler.nextPosition(from, LngLatHandler.DIRECTION_ANGLES[path.direction(i - 1)]));
+            assertFalse(geofence.isInNoFly(to.lng(), to.lat()));
+            boolean inCentral = geofence.isInCentral(to.lng(), to.lat());
+            assertFalse("re-entered the central area", leftCentral && inCentral);
+            leftCentral |= !inCentral;
+        }
+    }
+
+    @Test
+    public void singlePathTest(){
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PackedPath path = flightPath.calculateFlightPath(FlightPathBenchmark.NO_FLY_ZONES,
+                    FlightPathBenchmark.CENTRAL_AREA, FlightPathBenchmark.APPLETON, restaurant);
+            assertValidPath(path, FlightPathBenchmark.APPLETON, restaurant);
+        }
+    }
+
+    @Test
+    public void parallelPathsTest(){
+        Map<Integer, LngLat> ends = new LinkedHashMap<>();
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            ends.put(i, FlightPathBenchmark.RESTAURANTS[i]);
+        }
+        Map<Integer, PackedPath> paths = flightPath.calculateFlightPaths(geofence, FlightPathBenchmark.APPLETON,
+                ends);
+        assertEquals(ends.keySet(), paths.keySet());
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            assertEquals(flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    FlightPathBenchmark.RESTAURANTS[i]), paths.get(i));
+        }
+    }
+
+    @Test
+    public void singleTreeTest(){
+        Map<Integer, LngLat> ends = new LinkedHashMap<>();
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            ends.put(i, FlightPathBenchmark.RESTAURANTS[i]);
+        }
+        Map<Integer, PackedPath> paths = flightPath.calculateFlightPathTree(geofence,
+                FlightPathBenchmark.APPLETON, ends);
+        assertEquals(ends.keySet(), paths.keySet());
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            PackedPath path = paths.get(i);
+            assertValidPath(path, FlightPathBenchmark.APPLETON, FlightPathBenchmark.RESTAURANTS[i]);
+            PackedPath single = flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    FlightPathBenchmark.RESTAURANTS[i]);
+            //the tree can only ever be slightly longer than a search for this restaurant alone
+            assertTrue(path.size() <= single.size() + 2);
+        }
+    }
+
+    @Test
+    public void treeUsesSearchModeTest(){
+        Map<Integer, LngLat> ends = new LinkedHashMap<>();
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            ends.put(i, FlightPathBenchmark.RESTAURANTS[i]);
+        }
+        //every mode other than UNIDIRECTIONAL plans each path on its own with that mode
+        FlightPath weighted = new FlightPath(ForkJoinPool.commonPool(), SearchMode.WEIGHTED, 2,
+                FlightPath.DEFAULT_TIME_BUDGET);
+        Map<Integer, PackedPath> paths = weighted.calculateFlightPathTree(geofence, FlightPathBenchmark.APPLETON,
+                ends);
+        assertEquals(ends.keySet(), paths.keySet());
+        for (int i = 0; i < FlightPathBenchmark.RESTAURANTS.length; i++) {
+            assertEquals(weighted.planFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    FlightPathBenchmark.RESTAURANTS[i]).path(), paths.get(i));
+        }
+    }
+
+    @Test
+    public void bidirectionalPathTest(){
+        FlightPath bidirectional = new FlightPath(ForkJoinPool.commonPool(), SearchMode.BIDIRECTIONAL);
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PackedPath path = bidirectional.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    restaurant);
+            assertValidPath(path, FlightPathBenchmark.APPLETON, restaurant);
+            PackedPath single = flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    restaurant);
+            //meeting in the middle can only ever make the path slightly longer
+            assertTrue(path.size() <= single.size() + 2);
+        }
+    }
+
+    @Test
+    public void weightedPathTest(){
+        FlightPath weighted = new FlightPath(ForkJoinPool.commonPool(), SearchMode.WEIGHTED, 2,
+                FlightPath.DEFAULT_TIME_BUDGET);
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PlannedPath planned = weighted.planFlightPath(geofence, FlightPathBenchmark.APPLETON, restaurant);
+            assertValidPath(planned.path(), FlightPathBenchmark.APPLETON, restaurant);
+            assertEquals(2, planned.bound(), 0);
+            PackedPath single = flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    restaurant);
+            assertTrue(planned.path().size() - 1 <= 2 * (single.size() - 1));
+        }
+    }
+
+    @Test
+    public void anytimePathTest(){
+        //with an hour to spend the anytime search always gets down to epsilon 1
+        FlightPath anytime = new FlightPath(ForkJoinPool.commonPool(), SearchMode.ANYTIME, 3, Duration.ofHours(1));
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PlannedPath planned = anytime.planFlightPath(geofence, FlightPathBenchmark.APPLETON, restaurant);
+            assertValidPath(planned.path(), FlightPathBenchmark.APPLETON, restaurant);
+            assertEquals(1, planned.bound(), 1e-12);
+            PackedPath single = flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON,
+                    restaurant);
+            assertEquals(single.size(), planned.path().size());
+        }
+    }
+
+    @Test
+    public void anytimeDeadlineTest(){
+        //with no time to spend the anytime search still returns its first path
+        FlightPath anytime = new FlightPath(ForkJoinPool.commonPool(), SearchMode.ANYTIME, 3, Duration.ZERO);
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PlannedPath planned = anytime.planFlightPath(geofence, FlightPathBenchmark.APPLETON, restaurant);
+            assertValidPath(planned.path(), FlightPathBenchmark.APPLETON, restaurant);
+            assertTrue(planned.bound() >= 1 && planned.bound() <= 3);
+        }
+    }
+
+    @Test
+    public void hierarchicalPathTest(){
+        FlightPath hierarchical = new FlightPath(ForkJoinPool.commonPool(), SearchMode.HIERARCHICAL);
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PlannedPath planned = hierarchical.planFlightPath(geofence, FlightPathBenchmark.APPLETON, restaurant);
+            assertValidPath(planned.path(), FlightPathBenchmark.APPLETON, restaurant);
+            assertTrue(planned.bound() >= 1);
+        }
+    }
+
+    @Test
+    public void anglesMatchFindAngleTest(){
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            PackedPath path = flightPath.calculateFlightPath(geofence, FlightPathBenchmark.APPLETON, restaurant);
+            for (PackedPath direction : new PackedPath[]{path, path.reversed()}) {
+                for (int i = 0; i < direction.moves(); i++) {
+                    LngLat from = direction.get(i);
+                    //findAngle treats every move close to appleton as a hover
+                    if (!lngLatHandler.isCloseTo(from, new LngLat(-3.186874, 55.94494))) {
+                        assertEquals(FlightPath.findAngle(from, direction.get(i + 1)), direction.angle(i), 0);
+                    }
+                }
+            }
+        }
+    }
+}
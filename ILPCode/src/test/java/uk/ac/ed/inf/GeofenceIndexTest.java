@@ -0,0 +1,59 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeofenceIndexTest {
+
+    LngLatHandler lngLatHandler = new LngLatHandler();
+    GeofenceIndex geofence = new GeofenceIndex(FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+
+    private boolean isInNoFly(LngLat point) {
+        for (NamedRegion zone : FlightPathBenchmark.NO_FLY_ZONES) {
+            if (lngLatHandler.isInRegion(point, zone)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void matchesRayCastTest(){
+        Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            LngLat point = new LngLat(-3.195 + random.nextDouble() * 0.014, 55.941 + random.nextDouble() * 0.007);
+            assertEquals(point.toString(), isInNoFly(point), geofence.isInNoFly(point.lng(), point.lat()));
+            assertEquals(point.toString(), lngLatHandler.isInRegion(point, FlightPathBenchmark.CENTRAL_AREA),
+                    geofence.isInCentral(point.lng(), point.lat()));
+        }
+    }
+
+    @Test
+    public void verticesMatchRayCastTest(){
+        for (NamedRegion zone : FlightPathBenchmark.NO_FLY_ZONES) {
+            for (LngLat vertex : zone.vertices()) {
+                assertEquals(isInNoFly(vertex), geofence.isInNoFly(vertex.lng(), vertex.lat()));
+            }
+        }
+    }
+
+    @Test
+    public void knownPointsTest(){
+        assertTrue(geofence.isInNoFly(-3.1889, 55.9437));
+        assertFalse(geofence.isInNoFly(-3.186874, 55.944494));
+        assertTrue(geofence.isInCentral(-3.186874, 55.944494));
+        assertFalse(geofence.isInCentral(-3.202541470527649, 55.943284737579376));
+    }
+
+    @Test
+    public void noZonesTest(){
+        GeofenceIndex empty = new GeofenceIndex(new NamedRegion[0], FlightPathBenchmark.CENTRAL_AREA);
+        assertFalse(empty.isInNoFly(-3.1889, 55.9437));
+        assertTrue(empty.isInCentral(-3.1889, 55.9437));
+    }
+}
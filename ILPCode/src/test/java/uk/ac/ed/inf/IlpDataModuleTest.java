@@ -0,0 +1,123 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+import uk.ac.ed.inf.ilp.data.Order;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import static org.junit.Assert.*;
+
+public class IlpDataModuleTest {
+
+    ObjectMapper reflective = new ObjectMapper().registerModule(new JavaTimeModule());
+    ObjectMapper handWritten = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new IlpDataModule());
+
+    void assertSameOrder(Order expected, Order actual) {
+        assertEquals(expected.getOrderNo(), actual.getOrderNo());
+        assertEquals(expected.getOrderDate(), actual.getOrderDate());
+        assertEquals(expected.getOrderStatus(), actual.getOrderStatus());
+        assertEquals(expected.getOrderValidationCode(), actual.getOrderValidationCode());
+        assertEquals(expected.getPriceTotalInPence(), actual.getPriceTotalInPence());
+        assertArrayEquals(expected.getPizzasInOrder(), actual.getPizzasInOrder());
+        if (expected.getCreditCardInformation() == null) {
+            assertNull(actual.getCreditCardInformation());
+            return;
+        }
+        assertEquals(expected.getCreditCardInformation().getCreditCardNumber(),
+                actual.getCreditCardInformation().getCreditCardNumber());
+        assertEquals(expected.getCreditCardInformation().getCreditCardExpiry(),
+                actual.getCreditCardInformation().getCreditCardExpiry());
+        assertEquals(expected.getCreditCardInformation().getCvv(), actual.getCreditCardInformation().getCvv());
+    }
+
+    @Test
+    public void ordersTest() throws Exception {
+        Order[] expected = reflective.readValue(RestClientTest.ORDERS, Order[].class);
+        Order[] actual = handWritten.readValue(RestClientTest.ORDERS, Order[].class);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertSameOrder(expected[i], actual[i]);
+        }
+    }
+
+    @Test
+    public void missingFieldsTest() throws Exception {
+        //missing and null fields are left the same as the default binding leaves them
+        String json = "{\"orderNo\": \"A1\", \"pizzasInOrder\": [null], \"creditCardInformation\": {\"cvv\": null}}";
+        assertSameOrder(reflective.readValue(json, Order.class), handWritten.readValue(json, Order.class));
+        json = "{\"orderNo\": null, \"orderDate\": null, \"creditCardInformation\": null}";
+        assertSameOrder(reflective.readValue(json, Order.class), handWritten.readValue(json, Order.class));
+    }
+
+    @Test
+    public void regionsTest() throws Exception {
+        NamedRegion expected = reflective.readValue(RestClientTest.CENTRAL, NamedRegion.class);
+        NamedRegion actual = handWritten.readValue(RestClientTest.CENTRAL, NamedRegion.class);
+        assertEquals(expected.name(), actual.name());
+        assertArrayEquals(expected.vertices(), actual.vertices());
+    }
+
+    @Test
+    public void internedTest() throws Exception {
+        Restaurant restaurant = handWritten.readValue(RestClientTest.RESTAURANTS, Restaurant[].class)[0];
+        Order order = handWritten.readValue(RestClientTest.ORDERS, Order[].class)[0];
+        //the pizza in the order is the same object as the pizza on the menu
+        assertSame(restaurant.menu()[0], order.getPizzasInOrder()[0]);
+        //reading the same restaurant again gives the same object
+        assertSame(restaurant, handWritten.readValue(RestClientTest.RESTAURANTS, Restaurant[].class)[0]);
+        //a restaurant whose menu has changed is not mixed up with the old one
+        Restaurant changed = handWritten.readValue(RestClientTest.RESTAURANTS.replace("1000", "1200"),
+                Restaurant[].class)[0];
+        assertNotSame(restaurant, changed);
+        assertEquals(1200, changed.menu()[0].priceInPence());
+    }
+
+    @Test
+    public void onlyMenuPizzasKeptTest() throws Exception {
+        IlpDataModule module = new IlpDataModule();
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(module);
+        mapper.readValue(RestClientTest.RESTAURANTS, Restaurant[].class);
+        assertEquals(1, module.internedPizzas());
+        //pizzas that are not on any menu, or are on one at a different price, are read but not kept
+        for (int i = 0; i < 100; i++) {
+            Order order = mapper.readValue(RestClientTest.ORDERS.replace("R1: Margarita", "Unknown " + i)
+                    .replace("1000", Integer.toString(i)), Order[].class)[0];
+            assertEquals("Unknown " + i, order.getPizzasInOrder()[0].name());
+            assertEquals(i, order.getPizzasInOrder()[0].priceInPence());
+        }
+        assertEquals(1, module.internedPizzas());
+        //the pizzas of a menu that has changed are dropped
+        mapper.readValue(RestClientTest.RESTAURANTS.replace("1000", "1200"), Restaurant[].class);
+        assertEquals(1, module.internedPizzas());
+        assertEquals(1, module.internedPizzaNames());
+    }
+
+    @Test
+    public void sharedMenuPizzaKeptTest() throws Exception {
+        IlpDataModule module = new IlpDataModule();
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(module);
+        String second = RestClientTest.RESTAURANTS.replace("Civerinos Slice", "Sora Lella");
+        Restaurant kept = mapper.readValue(second, Restaurant[].class)[0];
+        mapper.readValue(RestClientTest.RESTAURANTS, Restaurant[].class);
+        //the first restaurant drops the pizza, but the second still lists it so it is kept
+        mapper.readValue(RestClientTest.RESTAURANTS.replace("R1: Margarita", "R1: Calzone"), Restaurant[].class);
+        assertEquals(2, module.internedPizzas());
+        assertEquals(2, module.internedPizzaNames());
+        Order order = mapper.readValue(RestClientTest.ORDERS, Order[].class)[0];
+        assertSame(kept.menu()[0], order.getPizzasInOrder()[0]);
+        assertSame(kept.menu()[0].name(), order.getPizzasInOrder()[0].name());
+        //once no restaurant lists it, the pizza and its name are dropped
+        mapper.readValue(second.replace("R1: Margarita", "R1: Calzone"), Restaurant[].class);
+        assertEquals(1, module.internedPizzas());
+        assertEquals(1, module.internedPizzaNames());
+    }
+
+    @Test(expected = UnrecognizedPropertyException.class)
+    public void unknownFieldTest() throws Exception {
+        handWritten.readValue("{\"orderNo\": \"A1\", \"colour\": \"red\"}", Order.class);
+    }
+}
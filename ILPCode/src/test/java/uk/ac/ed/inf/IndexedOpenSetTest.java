@@ -0,0 +1,45 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IndexedOpenSetTest {
+
+    NodeArena arena = new NodeArena(2);
+    IndexedOpenSet openSet = new IndexedOpenSet(arena, 2);
+
+    @Test
+    public void pollOrderTest(){
+        openSet.add(arena.add(0, 0, 3, 1, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        openSet.add(arena.add(1, 0, 1, 1, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        openSet.add(arena.add(2, 0, 2, 1, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        assertEquals(3, openSet.size());
+        assertEquals(1, openSet.poll());
+        assertEquals(2, openSet.poll());
+        assertEquals(0, openSet.poll());
+        assertTrue(openSet.isEmpty());
+        assertEquals(-1, openSet.poll());
+    }
+
+    @Test
+    public void tieBreakOnHTest(){
+        openSet.add(arena.add(0, 0, 1, 3, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        openSet.add(arena.add(1, 0, 3, 1, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        assertEquals(1, openSet.poll());
+    }
+
+    @Test
+    public void decreaseKeyTest(){
+        for (int i = 0; i < 10; i++) {
+            openSet.add(arena.add(i, 0, i, 1, NodeArena.NO_PARENT, NodeArena.NO_DIRECTION));
+        }
+        assertTrue(openSet.contains(7));
+        arena.g[7] = 0;
+        arena.f[7] = 0.5;
+        openSet.decreaseKey(7);
+        assertEquals(7, openSet.poll());
+        assertFalse(openSet.contains(7));
+        assertEquals(0, openSet.poll());
+    }
+}
@@ -46,6 +46,20 @@ public class LngLatHandlerTest {
        assertEquals(0.00015,position.lat(),1E-12);
     }
 
+    @Test
+    public void nextPositionsTest(){
+        double[] nextLng = new double[16];
+        double[] nextLat = new double[16];
+        LngLat start = new LngLat(-3.186874, 55.944494);
+        LngLatHandler.nextPositions(start.lng(), start.lat(), nextLng, nextLat);
+        //the precomputed moves must give exactly the same positions as nextPosition
+        for (int direction = 0; direction < 16; direction++) {
+            LngLat position = lngLatHandler.nextPosition(start, LngLatHandler.DIRECTION_ANGLES[direction]);
+            assertEquals(position.lng(), nextLng[direction], 0);
+            assertEquals(position.lat(), nextLat[direction], 0);
+        }
+    }
+
 
 
 
@@ -0,0 +1,33 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void putAndGetTest(){
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 7919L - 500, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(i * 7919L - 500));
+        }
+        assertEquals(LongIntHashMap.MISSING, map.get(1));
+    }
+
+    @Test
+    public void replaceAndClearTest(){
+        LongIntHashMap map = new LongIntHashMap(4);
+        map.put(42, 1);
+        map.put(42, 2);
+        assertEquals(1, map.size());
+        assertEquals(2, map.get(42));
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(LongIntHashMap.MISSING, map.get(42));
+    }
+}
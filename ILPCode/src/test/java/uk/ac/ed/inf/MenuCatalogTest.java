@@ -0,0 +1,50 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.Pizza;
+import uk.ac.ed.inf.ilp.data.Restaurant;
+
+import java.time.DayOfWeek;
+
+import static org.junit.Assert.*;
+
+public class MenuCatalogTest {
+
+    Restaurant[] restaurants = new Restaurant[] {
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    new DayOfWeek[] {DayOfWeek.MONDAY, DayOfWeek.SUNDAY},
+                    new Pizza[] {new Pizza("Margarita", 1000), new Pizza("Calzone", 1400)}),
+            new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+                    new DayOfWeek[] {DayOfWeek.WEDNESDAY},
+                    new Pizza[] {new Pizza("Meat Lover", 1400), new Pizza("Calzone", 1500)})
+    };
+    MenuCatalog catalog = new MenuCatalog(restaurants);
+
+    @Test
+    public void restaurantOfTest() {
+        assertEquals(0, catalog.restaurantOf("Margarita"));
+        assertEquals(1, catalog.restaurantOf("Meat Lover"));
+        assertEquals(MenuCatalog.NO_RESTAURANT, catalog.restaurantOf("Hawaiian"));
+        //a pizza sold by more than one restaurant belongs to the last of them
+        assertEquals(1, catalog.restaurantOf("Calzone"));
+        assertSame(restaurants[1], catalog.restaurantFor(new Pizza("Meat Lover", 1400)));
+        assertNull(catalog.restaurantFor(new Pizza("Hawaiian", 1400)));
+    }
+
+    @Test
+    public void priceOfTest() {
+        assertEquals(1400, catalog.priceOf(0, "Calzone"));
+        assertEquals(1500, catalog.priceOf(1, "Calzone"));
+        assertEquals(MenuCatalog.NOT_ON_MENU, catalog.priceOf(0, "Meat Lover"));
+    }
+
+    @Test
+    public void openOnTest() {
+        assertTrue(catalog.openOn(0, DayOfWeek.MONDAY));
+        assertTrue(catalog.openOn(0, DayOfWeek.SUNDAY));
+        assertFalse(catalog.openOn(0, DayOfWeek.WEDNESDAY));
+        assertTrue(catalog.openOn(1, DayOfWeek.WEDNESDAY));
+        assertFalse(catalog.openOn(1, DayOfWeek.SUNDAY));
+    }
+}
@@ -7,8 +7,12 @@ import uk.ac.ed.inf.ilp.data.*;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class OrderValidatorTest {
     OrderValidator orderValidator = new OrderValidator();
@@ -176,4 +180,80 @@ public class OrderValidatorTest {
         assertEquals(OrderValidationCode.TOTAL_INCORRECT, order.getOrderValidationCode());
     }
 
+    /**
+     * Makes a day of orders with a mix of validation codes
+     */
+    Order[] dayOfOrders(int count) {
+        Pizza[][] pizzas = {
+                {new Pizza("Margarita", 1000)},
+                {new Pizza("Margarita", 1000), new Pizza("Meat Lover", 1400)},
+                {new Pizza("Super Cheese", 1400)},
+                {new Pizza("Hawaiian", 1000)},
+                {new Pizza("Calzone", 1420)}};
+        String[] cvvs = {"111", "1A1", "222"};
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            Pizza[] ordered = pizzas[i % pizzas.length];
+            orders[i] = new Order(String.valueOf(i), LocalDate.of(2023, 11, 13 + i % 7), OrderStatus.UNDEFINED,
+                    OrderValidationCode.UNDEFINED, 100 + Arrays.stream(ordered).mapToInt(Pizza::priceInPence).sum(),
+                    ordered, new CreditCardInformation("1134178901234567", "12/30", cvvs[i % cvvs.length]));
+        }
+        return orders;
+    }
+
+    @Test
+    public void validateOrdersTest(){
+        Order[] expected = dayOfOrders(5000);
+        for (Order order : expected) {
+            orderValidator.validateOrder(order, restaurants);
+        }
+        Order[] orders = dayOfOrders(5000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSame(orders, new OrderValidator(pool).validateOrders(orders, restaurants));
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < orders.length; i++) {
+            assertEquals(expected[i].getOrderNo(), orders[i].getOrderNo());
+            assertEquals(expected[i].getOrderValidationCode(), orders[i].getOrderValidationCode());
+            assertEquals(expected[i].getOrderStatus(), orders[i].getOrderStatus());
+        }
+    }
+
+    @Test
+    public void validateOrderStreamTest(){
+        Order[] expected = dayOfOrders(2000);
+        for (Order order : expected) {
+            orderValidator.validateOrder(order, restaurants);
+        }
+        Order[] orders = orderValidator.validateOrders(Arrays.stream(dayOfOrders(2000)), restaurants);
+        assertEquals(expected.length, orders.length);
+        for (int i = 0; i < orders.length; i++) {
+            assertEquals(expected[i].getOrderNo(), orders[i].getOrderNo());
+            assertEquals(expected[i].getOrderValidationCode(), orders[i].getOrderValidationCode());
+        }
+    }
+
+    @Test
+    public void validationMetricsTest(){
+        Order[] orders = dayOfOrders(5000);
+        ValidationMetrics metrics = new ValidationMetrics();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new OrderValidator(pool).validateOrders(orders, restaurants, metrics);
+        } finally {
+            pool.shutdown();
+        }
+        //every order is counted once under the code it was given
+        assertEquals(orders.length, metrics.orders());
+        for (OrderValidationCode code : OrderValidationCode.values()) {
+            assertEquals(Arrays.stream(orders).filter(o -> o.getOrderValidationCode() == code).count(),
+                    metrics.count(code));
+        }
+        assertTrue(metrics.count(OrderValidationCode.CVV_INVALID) > 0);
+        assertTrue(metrics.count(OrderValidationCode.NO_ERROR) > 0);
+        //every order goes through the card check, so it has taken some time
+        assertTrue(metrics.nanos(ValidationMetrics.Rule.CARD) > 0);
+    }
 }
@@ -0,0 +1,89 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PackedPathTest {
+
+    LngLatHandler lngLatHandler = new LngLatHandler();
+
+    /**
+     * Builds a path from appleton that flies the given directions
+     */
+    PackedPath fly(int... directions) {
+        LngLat position = new LngLat(-3.186874, 55.944494);
+        PackedPath.Builder builder = new PackedPath.Builder(position.lng(), position.lat());
+        for (int direction : directions) {
+            position = lngLatHandler.nextPosition(position, LngLatHandler.DIRECTION_ANGLES[direction]);
+            builder.move(position.lng(), position.lat(), direction);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void builderTest(){
+        PackedPath path = fly(0, 3, 3, 15);
+        assertEquals(5, path.size());
+        assertEquals(4, path.moves());
+        assertEquals(3, path.direction(1));
+        assertEquals(-3.186874, path.lng(0), 0);
+    }
+
+    @Test
+    public void reversedTest(){
+        PackedPath path = fly(0, 3, 7, 15);
+        PackedPath back = path.reversed();
+        assertEquals(path.size(), back.size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.get(i), back.get(path.size() - 1 - i));
+        }
+        //the moves back are flown in the opposite directions, in the opposite order
+        assertEquals(7, back.direction(0));
+        assertEquals(15, back.direction(1));
+        assertEquals(11, back.direction(2));
+        assertEquals(8, back.direction(3));
+        assertEquals(path, back.reversed());
+        assertNotEquals(path, back);
+    }
+
+    @Test
+    public void iteratorTest(){
+        PackedPath path = fly(1, 2, 3);
+        List<LngLat> forwards = new ArrayList<>();
+        path.forEach(forwards::add);
+        List<LngLat> backwards = new ArrayList<>();
+        Iterator<LngLat> iterator = path.reverseIterator();
+        while (iterator.hasNext()) {
+            backwards.add(iterator.next());
+        }
+        assertEquals(4, forwards.size());
+        for (int i = 0; i < forwards.size(); i++) {
+            assertEquals(forwards.get(i), backwards.get(forwards.size() - 1 - i));
+        }
+    }
+
+    @Test
+    public void appendTest(){
+        PackedPath first = fly(0, 1);
+        PackedPath whole = fly(0, 1, 2, 3);
+        PackedPath.Builder builder = new PackedPath.Builder(first);
+        LngLat position = first.get(first.size() - 1);
+        PackedPath.Builder second = new PackedPath.Builder(position.lng(), position.lat());
+        for (int direction = 2; direction <= 3; direction++) {
+            position = lngLatHandler.nextPosition(position, LngLatHandler.DIRECTION_ANGLES[direction]);
+            second.move(position.lng(), position.lat(), direction);
+        }
+        assertEquals(whole, builder.append(second.build()).build());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedDirectionsTest(){
+        PackedPath.of(new double[]{0, 1}, new double[]{0, 1}, new byte[0]);
+    }
+}
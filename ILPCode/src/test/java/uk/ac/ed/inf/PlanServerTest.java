@@ -0,0 +1,139 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class PlanServerTest {
+
+    //A date no real orders are for, so the files the plan test writes do not replace any real ones
+    static final String DATE = "2000-01-03";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    PlanServer server;
+    Path snapshot;
+
+    @Before
+    public void startServer() throws IOException {
+        //the server reads from a snapshot, so no Rest server is needed
+        snapshot = folder.newFolder("snapshot").toPath();
+        Snapshot.save(snapshot, "isAlive", "true".getBytes(StandardCharsets.UTF_8));
+        Snapshot.save(snapshot, "restaurants", RestClientTest.RESTAURANTS.getBytes(StandardCharsets.UTF_8));
+        Snapshot.save(snapshot, "centralArea", RestClientTest.CENTRAL.getBytes(StandardCharsets.UTF_8));
+        Snapshot.save(snapshot, "noFlyZones", RestClientTest.NO_FLY_ZONES.getBytes(StandardCharsets.UTF_8));
+        Snapshot.save(snapshot, "orders/" + DATE, RestClientTest.ORDERS.getBytes(StandardCharsets.UTF_8));
+        server = new PlanServer(RestClient.open(snapshot.toString(), null), Duration.ofHours(1),
+                folder.getRoot().toPath().resolve("routes.bin"));
+        server.start(new InetSocketAddress("localhost", 0), 2);
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.stop();
+    }
+
+    /**
+     * Sends a request to the server and returns the status code and the JSON it answered with
+     */
+    Object[] send(String method, String path) throws IOException {
+        URL url = new URL("http://localhost:" + server.address().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Object[] {status, RestClient.OBJECT_MAPPER.readTree(body)};
+        }
+    }
+
+    @Test
+    public void planTest() throws IOException {
+        Path resultFiles = Paths.get("resultfiles");
+        try {
+            Object[] answer = send("POST", "/plan/" + DATE);
+            assertEquals(200, answer[0]);
+            JsonNode json = (JsonNode) answer[1];
+            assertEquals(DATE, json.get("date").asText());
+            assertEquals(1, json.get("orders").asInt());
+            assertTrue(Files.exists(resultFiles.resolve("deliveries-" + DATE + ".json")));
+            //the second plan of the date uses the data that was kept in memory
+            assertEquals(200, send("POST", "/plan/" + DATE)[0]);
+        } finally {
+            Files.deleteIfExists(resultFiles.resolve("deliveries-" + DATE + ".json"));
+            Files.deleteIfExists(resultFiles.resolve("drone-" + DATE + ".geojson"));
+            Files.deleteIfExists(resultFiles.resolve("flightpath-" + DATE + ".json"));
+        }
+    }
+
+    @Test
+    public void movedRestaurantTest() throws IOException {
+        //the order is for a monday, when the restaurant is open, so it is delivered. The central area is the whole
+        //rectangle, so appleton and the restaurant are both inside it
+        Snapshot.save(snapshot, "orders/" + DATE, RestClientTest.ORDERS.replace("2023-11-15", DATE)
+                .getBytes(StandardCharsets.UTF_8));
+        Snapshot.save(snapshot, "centralArea", RestClientTest.CENTRAL.replace("]}", ", {\"lng\": -3.184319, "
+                + "\"lat\": 55.946233}]}").getBytes(StandardCharsets.UTF_8));
+        LngLat moved = new LngLat(-3.202541470527649, 55.943284737579376);
+        Path resultFiles = Paths.get("resultfiles");
+        try {
+            assertEquals(1, ((JsonNode) send("POST", "/plan/" + DATE)[1]).get("delivered").asInt());
+            //the restaurant keeps its name but moves, with the nofly zones and central area unchanged
+            Snapshot.save(snapshot, "restaurants", RestClientTest.RESTAURANTS
+                    .replace("-3.1912869215011597", Double.toString(moved.lng()))
+                    .replace("55.945535152517735", Double.toString(moved.lat())).getBytes(StandardCharsets.UTF_8));
+            assertEquals(200, send("POST", "/refresh")[0]);
+            assertEquals(1, ((JsonNode) send("POST", "/plan/" + DATE)[1]).get("delivered").asInt());
+            //the drone hovers at the restaurant, which must be where it is now
+            JsonNode flightpath = RestClient.OBJECT_MAPPER.readTree(
+                    resultFiles.resolve("flightpath-" + DATE + ".json").toFile());
+            JsonNode hover = null;
+            for (JsonNode move : flightpath) {
+                if (move.get("angle").asDouble() == 999.0) {
+                    hover = move;
+                    break;
+                }
+            }
+            assertNotNull(hover);
+            assertTrue(new LngLatHandler().isCloseTo(new LngLat(hover.get("fromLongitude").asDouble(),
+                    hover.get("fromLatitude").asDouble()), moved));
+        } finally {
+            Files.deleteIfExists(resultFiles.resolve("deliveries-" + DATE + ".json"));
+            Files.deleteIfExists(resultFiles.resolve("drone-" + DATE + ".geojson"));
+            Files.deleteIfExists(resultFiles.resolve("flightpath-" + DATE + ".json"));
+        }
+    }
+
+    @Test
+    public void badRequestsTest() throws IOException {
+        assertEquals(400, send("POST", "/plan/notadate")[0]);
+        assertEquals(405, send("GET", "/plan/" + DATE)[0]);
+        //the snapshot has no orders for this date
+        assertEquals(502, send("POST", "/plan/2000-01-04")[0]);
+    }
+
+    @Test
+    public void refreshTest() throws IOException {
+        Object[] answer = send("POST", "/refresh");
+        assertEquals(200, answer[0]);
+        assertEquals(1, ((JsonNode) answer[1]).get("restaurants").asInt());
+        assertEquals(200, send("GET", "/isAlive")[0]);
+    }
+}
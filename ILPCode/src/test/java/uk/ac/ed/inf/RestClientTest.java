@@ -0,0 +1,270 @@
+package uk.ac.ed.inf;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class RestClientTest {
+
+    static final String RESTAURANTS = "[{\"name\": \"Civerinos Slice\", \"location\": {\"lng\": -3.1912869215011597, "
+            + "\"lat\": 55.945535152517735}, \"openingDays\": [\"MONDAY\", \"FRIDAY\"], \"menu\": [{\"name\": "
+            + "\"R1: Margarita\", \"priceInPence\": 1000}]}]";
+    static final String ORDERS = "[{\"orderNo\": \"A0000000\", \"orderDate\": \"2023-11-15\", \"orderStatus\": "
+            + "\"UNDEFINED\", \"orderValidationCode\": \"UNDEFINED\", \"priceTotalInPence\": 1100, \"pizzasInOrder\": "
+            + "[{\"name\": \"R1: Margarita\", \"priceInPence\": 1000}], \"creditCardInformation\": "
+            + "{\"creditCardNumber\": \"1234567812345678\", \"creditCardExpiry\": \"12/25\", \"cvv\": \"123\"}}]";
+    static final String CENTRAL = "{\"name\": \"central\", \"vertices\": [{\"lng\": -3.192473, \"lat\": 55.946233}, "
+            + "{\"lng\": -3.192473, \"lat\": 55.942617}, {\"lng\": -3.184319, \"lat\": 55.942617}]}";
+    static final String NO_FLY_ZONES = "[{\"name\": \"George Square Area\", \"vertices\": [{\"lng\": -3.1905, "
+            + "\"lat\": 55.9440}, {\"lng\": -3.1899, \"lat\": 55.9428}, {\"lng\": -3.1870, \"lat\": 55.9432}]}]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    HttpServer server;
+    ExecutorService executor;
+    //Counts down once for each request, so the stub can check every request is in flight at the same time
+    CountDownLatch requests = new CountDownLatch(5);
+    String alive = "true";
+    long delayMillis = 0;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        serve("/isAlive", () -> alive, false);
+        serve("/restaurants", () -> RESTAURANTS, true);
+        serve("/orders/2023-11-15", () -> ORDERS, true);
+        serve("/centralArea", () -> CENTRAL, false);
+        serve("/noFlyZones", () -> NO_FLY_ZONES, true);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    interface Body {
+        String get();
+    }
+
+    /**
+     * Serves a JSON body, gzipped if the client asks for it and gzip is true
+     */
+    void serve(String path, Body body, boolean gzip) {
+        server.createContext(path, exchange -> {
+            requests.countDown();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (gzip && accepted != null && accepted.contains("gzip")) {
+                ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+                try (GZIPOutputStream out = new GZIPOutputStream(zipped)) {
+                    out.write(bytes);
+                }
+                bytes = zipped.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Test
+    public void fetchDayTest() throws IOException {
+        RestClient.DayData day = new RestClient(url()).fetchDay("2023-11-15");
+        assertEquals(1, day.restaurants().length);
+        assertEquals("Civerinos Slice", day.restaurants()[0].name());
+        assertEquals(1, day.orders().length);
+        assertEquals("A0000000", day.orders()[0].getOrderNo());
+        assertEquals("central", day.centralArea().name());
+        assertEquals(1, day.noFlyZones().length);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        //every request waits until all five have arrived, which only happens if they are sent at the same time
+        AtomicBoolean allArrived = new AtomicBoolean();
+        server.removeContext("/isAlive");
+        server.createContext("/isAlive", exchange -> {
+            requests.countDown();
+            try {
+                allArrived.set(requests.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = "true".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        new RestClient(url()).fetchDay("2023-11-15");
+        assertTrue(allArrived.get());
+    }
+
+    @Test(expected = HttpTimeoutException.class)
+    public void timeoutTest() throws IOException {
+        delayMillis = 2000;
+        new RestClient(url(), Duration.ofMillis(200)).fetchDay("2023-11-15");
+    }
+
+    /**
+     * Serves the headers and the start of a body and then stops sending until the server is stopped
+     */
+    void stall(String path, String start) {
+        server.removeContext(path);
+        server.createContext(path, exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(start.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test(expected = HttpTimeoutException.class)
+    public void stalledBodyTest() throws IOException {
+        //the headers arrive straight away, so only a deadline on the body stops this waiting
+        stall("/restaurants", "[{\"name\": ");
+        new RestClient(url(), Duration.ofMillis(500)).fetchDay("2023-11-15");
+    }
+
+    @Test(expected = HttpTimeoutException.class)
+    public void stalledOrdersTest() throws IOException {
+        stall("/orders/2023-11-15", ORDERS.substring(0, ORDERS.length() - 1));
+        new RestClient(url(), Duration.ofMillis(500)).streamOrders("2023-11-15").forEach(order -> {
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void notAliveTest() throws IOException {
+        alive = "false";
+        new RestClient(url()).fetchDay("2023-11-15");
+    }
+
+    @Test(expected = IOException.class)
+    public void missingDateTest() throws IOException {
+        new RestClient(url()).fetchDay("2023-11-16");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidUrlTest() {
+        new RestClient("notaurl");
+    }
+
+    @Test
+    public void streamOrdersTest() throws IOException {
+        List<String> orderNumbers = new ArrayList<>();
+        int count = new RestClient(url()).streamOrders("2023-11-15")
+                .forEach(order -> orderNumbers.add(order.getOrderNo()));
+        assertEquals(1, count);
+        assertEquals(List.of("A0000000"), orderNumbers);
+    }
+
+    @Test
+    public void streamsBeforeResponseEndsTest() throws IOException {
+        //the server only sends the second order once the first has been handled, so this only finishes if each order
+        //is handled as soon as it arrives
+        CountDownLatch firstHandled = new CountDownLatch(1);
+        String order = ORDERS.substring(1, ORDERS.length() - 1);
+        server.createContext("/orders/2023-11-16", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(("[" + order).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                boolean handled = firstHandled.await(5, TimeUnit.SECONDS);
+                out.write(("," + order.replace("A0000000", handled ? "A0000001" : "LATE") + "]")
+                        .getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<String> orderNumbers = new ArrayList<>();
+        new RestClient(url()).streamOrders("2023-11-16").forEach(o -> {
+            orderNumbers.add(o.getOrderNo());
+            firstHandled.countDown();
+        });
+        assertEquals(List.of("A0000000", "A0000001"), orderNumbers);
+    }
+
+    @Test(expected = IOException.class)
+    public void streamMissingDateTest() throws IOException {
+        new RestClient(url()).streamOrders("2023-11-17").forEach(order -> fail());
+    }
+
+    @Test
+    public void recordAndReplayTest() throws IOException {
+        Path snapshot = folder.getRoot().toPath().resolve("snapshot");
+        RestClient.open(url(), snapshot).fetchDay("2023-11-15");
+        //the recorded responses are the unzipped bodies the server sent
+        assertEquals(RESTAURANTS, Files.readString(snapshot.resolve("restaurants.json")));
+        assertEquals(ORDERS, Files.readString(snapshot.resolve("orders/2023-11-15.json")));
+        server.stop(0);
+
+        //the snapshot is read without the server
+        RestClient replay = RestClient.open(snapshot.toString(), null);
+        RestClient.DayData day = replay.fetchDay("2023-11-15");
+        assertEquals("Civerinos Slice", day.restaurants()[0].name());
+        assertEquals("central", day.centralArea().name());
+        List<String> orderNumbers = new ArrayList<>();
+        replay.streamOrders("2023-11-15").forEach(order -> orderNumbers.add(order.getOrderNo()));
+        assertEquals(List.of("A0000000"), orderNumbers);
+    }
+
+    @Test
+    public void recordStreamedOrdersTest() throws IOException {
+        Path snapshot = folder.getRoot().toPath().resolve("snapshot");
+        int count = RestClient.open(url(), snapshot).streamOrders("2023-11-15").forEach(order -> {
+        });
+        assertEquals(1, count);
+        assertEquals(ORDERS, Files.readString(snapshot.resolve("orders/2023-11-15.json")));
+    }
+
+    @Test(expected = IOException.class)
+    public void snapshotMissingDateTest() throws IOException {
+        Path snapshot = folder.newFolder("snapshot").toPath();
+        RestClient.open(url(), snapshot).fetchReference();
+        RestClient.open(snapshot.toString(), null).streamOrders("2023-11-16").forEach(order -> fail());
+    }
+}
@@ -0,0 +1,66 @@
+package uk.ac.ed.inf;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RouteCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    LngLat start = new LngLat(-3.186874, 55.944494);
+    LngLat civerinos = new LngLat(-3.1912869215011597, 55.945535152517735);
+    LngLat soraLella = new LngLat(-3.202541470527649, 55.943284737579376);
+
+    RouteCache open(Path file) {
+        return new RouteCache(start, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                new FlightPath(), file);
+    }
+
+    @Test
+    public void sharedPathsTest() throws Exception {
+        RouteCache cache = open(folder.getRoot().toPath().resolve("routes.bin"));
+        Map<String, LngLat> restaurants = new LinkedHashMap<>();
+        restaurants.put("Civerinos Slice", civerinos);
+        restaurants.put("Sora Lella Vegan Restaurant", soraLella);
+        //several dates asking for the same restaurants at the same time all get the same paths
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Map<String, PackedPath>>> results = workers.invokeAll(List.of(
+                    () -> cache.pathsTo(restaurants), () -> cache.pathsTo(restaurants),
+                    () -> cache.pathsTo(Map.of("Civerinos Slice", civerinos)), () -> cache.pathsTo(restaurants)));
+            PackedPath first = results.get(0).get().get("Civerinos Slice");
+            assertNotNull(first);
+            for (Future<Map<String, PackedPath>> result : results) {
+                assertSame(first, result.get().get("Civerinos Slice"));
+            }
+            assertEquals(2, results.get(3).get().size());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void savedPathsTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        RouteCache cache = open(file);
+        PackedPath path = cache.pathsTo(Map.of("Civerinos Slice", civerinos)).get("Civerinos Slice");
+        cache.save();
+        //a later run reads the path from the route store instead of calculating it
+        RouteCache reopened = open(file);
+        assertEquals(path, reopened.pathsTo(Map.of("Civerinos Slice", civerinos)).get("Civerinos Slice"));
+    }
+}
@@ -0,0 +1,142 @@
+package uk.ac.ed.inf;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ed.inf.ilp.data.LngLat;
+import uk.ac.ed.inf.ilp.data.NamedRegion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class RouteStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    LngLat start = new LngLat(-3.186874, 55.944494);
+    LngLat end = new LngLat(-3.1838572025299072, 55.94449876875712);
+    PackedPath path = new PackedPath.Builder(-3.186874, 55.944494)
+            .move(-3.1873240000000003, 55.944494, 7)
+            .move(-3.183873999999998, 55.944494, 15)
+            .build();
+
+    @Test
+    public void saveAndLoadTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        RouteStore store = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        assertNull(store.get(start, end));
+        store.put(start, end, path);
+        store.save();
+
+        RouteStore loaded = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        PackedPath loadedPath = loaded.get(start, end);
+        assertEquals(path, loadedPath);
+        assertNull(loaded.get(end, start));
+    }
+
+    @Test
+    public void changedRegionsTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        RouteStore store = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        store.put(start, end, path);
+        store.save();
+
+        NamedRegion[] fewerZones = {FlightPathBenchmark.NO_FLY_ZONES[0]};
+        RouteStore loaded = RouteStore.open(file, fewerZones, FlightPathBenchmark.CENTRAL_AREA);
+        assertNull(loaded.get(start, end));
+    }
+
+    @Test
+    public void changedSearchTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        FlightPath weighted = new FlightPath(ForkJoinPool.commonPool(), SearchMode.WEIGHTED, 3,
+                FlightPath.DEFAULT_TIME_BUDGET);
+        RouteStore store = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                weighted.searchHash());
+        store.put(start, end, path);
+        store.save();
+
+        //paths from the weighted search are not given to the default search, or to a weighted search with another
+        //epsilon
+        assertNull(RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                new FlightPath().searchHash()).get(start, end));
+        FlightPath otherEpsilon = new FlightPath(ForkJoinPool.commonPool(), SearchMode.WEIGHTED, 2,
+                FlightPath.DEFAULT_TIME_BUDGET);
+        assertNull(RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                otherEpsilon.searchHash()).get(start, end));
+        assertEquals(path, RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                weighted.searchHash()).get(start, end));
+        //a store opened without a search is the one the default FlightPath uses
+        RouteStore defaultStore = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES,
+                FlightPathBenchmark.CENTRAL_AREA);
+        defaultStore.put(start, end, path);
+        defaultStore.save();
+        assertEquals(path, RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA,
+                new FlightPath().searchHash()).get(start, end));
+    }
+
+    @Test
+    public void geometryHashTest(){
+        long hash = RouteStore.geometryHash(FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        NamedRegion movedCentral = new NamedRegion("central", new LngLat[]{
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946234)});
+        assertEquals(hash, RouteStore.geometryHash(FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA));
+        assertNotEquals(hash, RouteStore.geometryHash(FlightPathBenchmark.NO_FLY_ZONES, movedCentral));
+    }
+
+    /**
+     * Saves the path and returns the bytes of the file with the number of coordinates of the path replaced
+     */
+    byte[] savedWithSize(Path file, int size) throws IOException {
+        RouteStore store = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        store.put(start, end, path);
+        store.save();
+        byte[] bytes = Files.readAllBytes(file);
+        //the number of coordinates follows the 20 byte header and the 32 bytes of the start and end point
+        ByteBuffer.wrap(bytes).putInt(20 + 32, size);
+        return bytes;
+    }
+
+    @Test
+    public void corruptEntryTest() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        for (int size : new int[]{0, -5, 1_000_000, Integer.MAX_VALUE}) {
+            Files.write(file, savedWithSize(file, size));
+            RouteStore loaded = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES,
+                    FlightPathBenchmark.CENTRAL_AREA);
+            assertNull(loaded.get(start, end));
+        }
+        //a file that ends in the middle of a path is not used either
+        byte[] bytes = savedWithSize(file, path.size());
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        assertNull(RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA)
+                .get(start, end));
+    }
+
+    @Test
+    public void permissionsTest() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return;
+        }
+        Path file = folder.getRoot().toPath().resolve("routes.bin");
+        RouteStore store = RouteStore.open(file, FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+        store.put(start, end, path);
+        store.save();
+        //the file is not only readable by its owner, the same as any other file the program writes
+        Path other = Files.createFile(folder.getRoot().toPath().resolve("other"));
+        assertEquals(Files.getPosixFilePermissions(other), Files.getPosixFilePermissions(file));
+        assertTrue(Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_READ));
+    }
+}
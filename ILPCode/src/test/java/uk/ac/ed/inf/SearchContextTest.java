@@ -0,0 +1,21 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchContextTest {
+
+    @Test
+    public void latticeKeyTest(){
+        SearchContext context = new SearchContext();
+        context.reset(-3.186874, 55.944494);
+        //positions that only differ in the last bits get the same key
+        assertEquals(context.latticeKey(-3.1873240000000003, 55.944494),
+                context.latticeKey(-3.187324, 55.944494));
+        assertNotEquals(context.latticeKey(-3.187324, 55.944494),
+                context.latticeKey(-3.187324, 55.944644));
+        assertNotEquals(context.latticeKey(-3.187324, 55.944494),
+                context.latticeKey(-3.186424, 55.944494));
+    }
+}
@@ -0,0 +1,45 @@
+package uk.ac.ed.inf;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void saveAndOpenTest() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        byte[] body = RestClientTest.ORDERS.getBytes(StandardCharsets.UTF_8);
+        Snapshot.save(directory, "orders/2023-11-15", body);
+        assertTrue(Files.exists(directory.resolve("orders").resolve("2023-11-15.json")));
+        try (InputStream in = Snapshot.open(directory, "orders/2023-11-15")) {
+            assertEquals(body.length, in.available());
+            assertArrayEquals(body, in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void emptyTest() throws IOException {
+        Snapshot.save(folder.getRoot().toPath(), "orders/2023-11-15", new byte[0]);
+        try (InputStream in = Snapshot.open(folder.getRoot().toPath(), "orders/2023-11-15")) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void missingTest() throws IOException {
+        Snapshot.open(folder.getRoot().toPath(), "restaurants");
+    }
+}
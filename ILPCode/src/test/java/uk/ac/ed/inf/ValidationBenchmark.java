@@ -0,0 +1,91 @@
+package uk.ac.ed.inf;
+
+import uk.ac.ed.inf.ilp.constant.OrderStatus;
+import uk.ac.ed.inf.ilp.constant.OrderValidationCode;
+import uk.ac.ed.inf.ilp.data.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * This is a benchmark for OrderValidator. It validates a day of orders with a mix of valid and invalid cards many times
+ * and prints the time taken and the number of bytes the thread allocated for each order, which should be 0 once the
+ * JIT has compiled validateOrder. It is not a unit test, it is run by hand with its main function
+ */
+public class ValidationBenchmark {
+
+    static final Restaurant[] RESTAURANTS = {
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    new DayOfWeek[] {DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY},
+                    new Pizza[] {new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)}),
+            new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+                    new DayOfWeek[] {DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY},
+                    new Pizza[] {new Pizza("R2: Meat Lover", 1400), new Pizza("R2: Vegan Delight", 1100)})};
+
+    static final String[][] CARDS = {
+            {"1134178901234567", "12/25", "111"},
+            {"113417890123456A", "12/25", "111"},
+            {"1134178901234567", "10/23", "111"},
+            {"1134178901234567", "12/25", "1A1"},
+            {"1134178901234567", "04/28", "931"}};
+
+    /**
+     * This is a helper function that makes a day of orders
+     * @param count is the number of orders
+     * @return Order[] returns the orders
+     */
+    static Order[] dayOfOrders(int count) {
+        Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            String[] card = CARDS[i % CARDS.length];
+            Pizza pizza = RESTAURANTS[i % 2].menu()[(i / 2) % 2];
+            orders[i] = new Order(String.format("%08X", i), LocalDate.of(2023, 11, 15), OrderStatus.UNDEFINED,
+                    OrderValidationCode.UNDEFINED, pizza.priceInPence() + 100, new Pizza[] {pizza},
+                    new CreditCardInformation(card[0], card[1], card[2]));
+        }
+        return orders;
+    }
+
+    /**
+     * This is a helper function that validates every order once
+     * @param validator is the validator
+     * @param orders is the orders
+     * @return int returns the number of valid orders, so the work cannot be left out by the JIT
+     */
+    static int validateAll(OrderValidator validator, Order[] orders) {
+        int valid = 0;
+        for (Order order : orders) {
+            if (validator.validateOrder(order, RESTAURANTS).getOrderValidationCode() == OrderValidationCode.NO_ERROR) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Order[] orders = dayOfOrders(count);
+        OrderValidator validator = new OrderValidator();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        //warms up validateOrder before anything is measured
+        int valid = 0;
+        for (int i = 0; i < runs; i++) {
+            valid += validateAll(validator, orders);
+        }
+
+        long startBytes = threads.getThreadAllocatedBytes(thread);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            valid += validateAll(validator, orders);
+        }
+        long nanos = System.nanoTime() - startTime;
+        long bytes = threads.getThreadAllocatedBytes(thread) - startBytes;
+        long validated = (long) count * runs;
+        System.out.printf("orders=%d valid=%d time=%.1fns/order allocated=%.3fbytes/order%n", validated,
+                valid / (2 * runs), (double) nanos / validated, (double) bytes / validated);
+    }
+}
@@ -0,0 +1,51 @@
+package uk.ac.ed.inf;
+
+import org.junit.Test;
+import uk.ac.ed.inf.ilp.data.LngLat;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VisibilityGraphTest {
+
+    GeofenceIndex geofence = new GeofenceIndex(FlightPathBenchmark.NO_FLY_ZONES, FlightPathBenchmark.CENTRAL_AREA);
+    VisibilityGraph graph = geofence.getVisibilityGraph();
+
+    @Test
+    public void cornersOutsideZonesTest(){
+        assertTrue(graph.size() > 0);
+        assertSame(graph, geofence.getVisibilityGraph());
+    }
+
+    @Test
+    public void routeTest(){
+        for (LngLat restaurant : FlightPathBenchmark.RESTAURANTS) {
+            List<LngLat> route = graph.route(FlightPathBenchmark.APPLETON, restaurant);
+            assertNotNull(route);
+            assertEquals(FlightPathBenchmark.APPLETON, route.get(0));
+            assertEquals(restaurant, route.get(route.size() - 1));
+            for (int i = 1; i < route.size(); i++) {
+                LngLat from = route.get(i - 1);
+                LngLat to = route.get(i);
+                assertFalse(geofence.isInNoFly(to.lng(), to.lat()));
+                assertTrue(graph.canFlyStraight(from.lng(), from.lat(), to.lng(), to.lat()));
+            }
+        }
+    }
+
+    @Test
+    public void centralReEntryTest(){
+        //a line from outside the central area into it can not be flown, but the line back out can
+        LngLat outside = new LngLat(-3.1830, 55.9440);
+        LngLat inside = new LngLat(-3.1850, 55.9440);
+        assertFalse(graph.canFlyStraight(outside.lng(), outside.lat(), inside.lng(), inside.lat()));
+        assertTrue(graph.canFlyStraight(inside.lng(), inside.lat(), outside.lng(), outside.lat()));
+    }
+
+    @Test
+    public void noFlyTest(){
+        //this line goes straight through George Square
+        assertFalse(graph.canFlyStraight(-3.1910, 55.9435, -3.1865, 55.9435));
+    }
+}